@@ -0,0 +1,90 @@
+package poc.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Borne le nombre de connexions empruntees a la taille du pool : les appelants en surplus attendent
+// sur un semaphore equitable (peu couteux pour un thread virtuel) au lieu de saturer le pool et
+// d'echouer sur son delai d'attente. Le permis est rendu a la fermeture de la connexion.
+public class BoundedDataSource extends DelegatingDataSource {
+
+    private final Semaphore permis;
+    private final Timer attente;
+
+    public BoundedDataSource(DataSource cible, int nbPermis, MeterRegistry registry) {
+        super(cible);
+        this.permis = new Semaphore(nbPermis, true);
+        this.attente = Timer.builder("fesup.jdbc.attente")
+                .description("Attente d'un permis avant l'emprunt d'une connexion JDBC")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        registry.gauge("fesup.jdbc.file", permis, Semaphore::getQueueLength);
+        registry.gauge("fesup.jdbc.permis.libres", permis, Semaphore::availablePermits);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquerir();
+        try {
+            return liberantALaFermeture(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permis.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquerir();
+        try {
+            return liberantALaFermeture(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permis.release();
+            throw e;
+        }
+    }
+
+    private void acquerir() throws SQLException {
+        long debut = System.nanoTime();
+        try {
+            permis.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompu en attente d'une connexion", e);
+        } finally {
+            attente.record(System.nanoTime() - debut, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Connection liberantALaFermeture(Connection connexion) {
+        AtomicBoolean fermee = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, methode, args) -> {
+                    if (methode.getName().equals("close") && fermee.compareAndSet(false, true)) {
+                        try {
+                            return methode.invoke(connexion, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        } finally {
+                            permis.release();
+                        }
+                    }
+                    if (methode.getName().equals("unwrap") && args[0] == Connection.class) return proxy;
+                    try {
+                        return methode.invoke(connexion, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
@@ -1,6 +1,9 @@
 package poc.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
@@ -8,58 +11,77 @@ import org.springframework.jdbc.core.JdbcTemplate;
 
 import poc.model.*;
 import poc.repository.*;
+import poc.service.DonneesModifiees;
 import poc.service.ExcelService;
 
 import java.io.File;
-import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 
 @Configuration
 public class DataInitializer {
 
+    private static final Logger log = LoggerFactory.getLogger(DataInitializer.class);
+    private static final String SOURCE_INPUTS = "Inputs";
+    private static final String SOURCE_DATA_SQL = "data.sql";
+
     @Bean
     CommandLineRunner initDatabase(
             ActiviteRepository activiteRepo, LyceeRepository lyceeRepo,
             AdminRepository adminRepo, ViewerRepository viewerRepo,
             EtudiantRepository etudiantRepo, AffectationRepository affectationRepo,
-            VoeuRepository voeuRepo, JdbcTemplate jdbc, ExcelService excelService) {
+            VoeuRepository voeuRepo, JdbcTemplate jdbc, ExcelService excelService,
+            ApplicationEventPublisher publisher, StartupSeeder seeder) {
 
         return args -> {
+            Phases phases = new Phases();
             initAdmin(adminRepo);
+            phases.fin("admin");
 
             // Si des fichiers Excel existent dans Inputs/, on les utilise
-            File inputsFolder = new File("Inputs");
-            boolean hasExcel = inputsFolder.exists() && inputsFolder.isDirectory()
-                    && inputsFolder.listFiles((d, n) -> n.endsWith(".xlsx")) != null
-                    && inputsFolder.listFiles((d, n) -> n.endsWith(".xlsx")).length > 0;
+            File[] classeurs = new File("Inputs").listFiles((d, n) -> n.endsWith(".xlsx") || n.endsWith(".xls"));
+            boolean hasExcel = classeurs != null && Arrays.stream(classeurs).anyMatch(f -> f.getName().endsWith(".xlsx"));
 
             if (hasExcel) {
-                // Reset et import depuis fichiers Excel
-                affectationRepo.deleteAll();
-                voeuRepo.deleteAll();
-                etudiantRepo.deleteAll();
-                activiteRepo.deleteAll();
-                viewerRepo.deleteAll();
-
-                excelService.importActivities("Inputs", activiteRepo);
-                excelService.importStudents("Inputs", etudiantRepo, lyceeRepo);
-                excelService.importViewers("Inputs", viewerRepo, lyceeRepo);
+                String empreinte = seeder.empreinte(List.of(classeurs));
+                phases.fin("empreinte Inputs");
+                // Redemarrage sans changement des fichiers : la base n'est pas reecrite
+                if (seeder.aJour(SOURCE_INPUTS, empreinte) && etudiantRepo.count() > 0) {
+                    log.info("Inputs/ inchange depuis le dernier import : import ignore");
+                } else {
+                    // Reset et import depuis fichiers Excel
+                    affectationRepo.deleteAllInBatch();
+                    voeuRepo.deleteAllInBatch();
+                    etudiantRepo.deleteAllInBatch();
+                    activiteRepo.deleteAllInBatch();
+                    viewerRepo.deleteAllInBatch();
+                    phases.fin("reset");
+
+                    excelService.importActivities("Inputs", activiteRepo);
+                    phases.fin("import activites");
+                    excelService.importStudents("Inputs").forEach(r -> log.info("Import {}", r));
+                    phases.fin("import eleves");
+                    excelService.importViewers("Inputs", viewerRepo, lyceeRepo);
+                    phases.fin("import viewers");
+                    seeder.enregistrer(SOURCE_INPUTS, empreinte);
+                }
             } else {
                 // Mode test : donnees hardcodees
                 Lycee fauriel = getOrCreateLycee(lyceeRepo, "Fauriel", "Lycee Claude Fauriel");
                 Lycee brassens = getOrCreateLycee(lyceeRepo, "Brassens", "Lycee Georges Brassens");
                 initViewers(viewerRepo, fauriel, brassens);
+                phases.fin("lycees et viewers");
                 cleanDuplicateINE(jdbc);
-                executeSqlFile(jdbc);
+                executeSqlFile(seeder, etudiantRepo);
+                phases.fin("data.sql");
                 initActivites(activiteRepo);
+                phases.fin("activites");
             }
+            publisher.publishEvent(DonneesModifiees.tout(this));
 
-            System.out.println("===========================================");
-            System.out.println("  Etudiants: " + etudiantRepo.count());
-            System.out.println("  Viewers:   " + viewerRepo.count());
-            System.out.println("  Activites: " + activiteRepo.count());
-            System.out.println("  ADMIN: admin / admin");
-            System.out.println("===========================================");
+            log.info("Donnees initialisees : {} etudiants, {} viewers, {} activites (ADMIN: admin / admin)",
+                    etudiantRepo.count(), viewerRepo.count(), activiteRepo.count());
+            log.info("Initialisation des donnees en {} ms : {}", phases.totalMs(), phases);
         };
     }
 
@@ -97,19 +119,22 @@ public class DataInitializer {
         } catch (Exception ignored) {}
     }
 
-    private void executeSqlFile(JdbcTemplate jdbc) {
+    // data.sql rejoue seulement si son contenu a change depuis le dernier chargement (ou base vide)
+    private void executeSqlFile(StartupSeeder seeder, EtudiantRepository etudiantRepo) {
         try {
             ClassPathResource res = new ClassPathResource("data.sql");
-            if (res.exists()) {
-                String sql = new String(res.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
-                for (String stmt : sql.split(";")) {
-                    stmt = stmt.trim();
-                    if (!stmt.isEmpty() && !stmt.startsWith("--")) {
-                        try { jdbc.execute(stmt); } catch (Exception ignored) {}
-                    }
-                }
+            if (!res.exists()) return;
+            String empreinte = seeder.empreinte(res.getContentAsByteArray());
+            if (seeder.aJour(SOURCE_DATA_SQL, empreinte) && etudiantRepo.count() > 0) {
+                log.info("data.sql inchange depuis le dernier chargement : ignore");
+                return;
             }
-        } catch (Exception ignored) {}
+            int executees = seeder.executerScript(res);
+            seeder.enregistrer(SOURCE_DATA_SQL, empreinte);
+            log.info("data.sql : {} instructions executees", executees);
+        } catch (Exception e) {
+            log.error("Echec du chargement de data.sql : {}", e.getMessage());
+        }
     }
 
     private void initActivites(ActiviteRepository repo) {
@@ -163,4 +188,27 @@ public class DataInitializer {
         a.setSalle(salle);
         repo.save(a);
     }
+
+    // Durees des phases du demarrage, pour le journal
+    private static final class Phases {
+        private final long debut = System.nanoTime();
+        private long precedente = debut;
+        private final StringBuilder detail = new StringBuilder();
+
+        void fin(String phase) {
+            long maintenant = System.nanoTime();
+            if (detail.length() > 0) detail.append(", ");
+            detail.append(phase).append(' ').append((maintenant - precedente) / 1_000_000).append(" ms");
+            precedente = maintenant;
+        }
+
+        long totalMs() {
+            return (System.nanoTime() - debut) / 1_000_000;
+        }
+
+        @Override
+        public String toString() {
+            return detail.toString();
+        }
+    }
 }
@@ -0,0 +1,45 @@
+package poc.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ExecutorConfig {
+
+    // Pool borne pour les calculs d'affectation (une tache par demi-journee)
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService assignmentExecutor(
+            @Value("${fesup.affectation.threads:0}") int threads) {
+        return pool("affectation", threads);
+    }
+
+    // Tirages independants du mode loterie : un tirage par tache, snapshot partage en lecture seule
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool lotteryPool(
+            @Value("${fesup.affectation.threads:0}") int threads) {
+        return new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    }
+
+    // Rendu des lots de convocations PDF
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService exportExecutor(
+            @Value("${fesup.export.threads:0}") int threads) {
+        return pool("export", threads);
+    }
+
+    private ExecutorService pool(String nom, int threads) {
+        int taille = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger numero = new AtomicInteger();
+        return Executors.newFixedThreadPool(taille, r -> {
+            Thread t = new Thread(r, nom + "-" + numero.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
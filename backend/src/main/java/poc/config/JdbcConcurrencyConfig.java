@@ -0,0 +1,34 @@
+package poc.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+// Profil "virtual" : les requetes tournent sur des threads virtuels, l'acces JDBC est borne
+// par BoundedDataSource (fesup.jdbc.borne.permis, 0 = taille du pool Hikari).
+@Configuration
+@ConditionalOnProperty(name = "fesup.jdbc.borne.enabled", havingValue = "true")
+public class JdbcConcurrencyConfig {
+
+    @Bean
+    static BeanPostProcessor boundedDataSourcePostProcessor(Environment env, ObjectProvider<MeterRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource ds) || bean instanceof BoundedDataSource) return bean;
+                int permis = env.getProperty("fesup.jdbc.borne.permis", Integer.class, 0);
+                if (permis <= 0) {
+                    permis = ds instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+                }
+                return new BoundedDataSource(ds, permis, registry.getObject());
+            }
+        };
+    }
+}
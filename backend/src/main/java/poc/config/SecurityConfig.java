@@ -1,12 +1,18 @@
 package poc.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import poc.security.JwtAuthenticationFilter;
+import poc.security.JwtPrincipalResolver;
+import poc.security.JwtUtils;
+import poc.security.VerifiedTokenCache;
 
 import java.util.List;
 
@@ -14,17 +20,31 @@ import java.util.List;
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtUtils jwtUtils, JwtPrincipalResolver resolver,
+                                           VerifiedTokenCache tokenCache) throws Exception {
         http
+                // Instancie ici (pas en @Bean) pour ne pas etre enregistre une seconde fois comme filtre servlet
+                .addFilterBefore(new JwtAuthenticationFilter(jwtUtils, resolver, tokenCache),
+                        UsernamePasswordAuthenticationFilter.class)
                 .csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .headers(headers -> headers.frameOptions(frame -> frame.sameOrigin()))
                 .authorizeHttpRequests(auth -> auth
+                        // Sondes Docker publiques ; metriques (/actuator/metrics, /actuator/prometheus)
+                        // reservees aux comptes admin, le scrapeur envoie un jeton admin
+                        .requestMatchers("/actuator/health/**", "/actuator/info").permitAll()
+                        .requestMatchers("/actuator/**").hasAnyRole("ADMIN", "SUPER_ADMIN")
                         .requestMatchers("/h2-console/**", "/api/**").permitAll()
                         .anyRequest().permitAll());
         return http.build();
     }
 
+    @Bean
+    public VerifiedTokenCache verifiedTokenCache(@Value("${fesup.jwt.cache.taille:10000}") int taille,
+                                                 @Value("${fesup.jwt.cache.ttl-s:600}") long ttlSecondes) {
+        return new VerifiedTokenCache(taille, ttlSecondes * 1000);
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration config = new CorsConfiguration();
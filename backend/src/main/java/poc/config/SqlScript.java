@@ -0,0 +1,96 @@
+package poc.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Lecture d'un script SQL de donnees (data.sql) : decoupage en instructions sur les ';' hors
+// chaines, identifiants entre guillemets et commentaires, puis parametrage des chaines litterales
+// pour que les instructions de meme forme partagent une requete preparee et partent par lots.
+final class SqlScript {
+
+    private SqlScript() {
+    }
+
+    static List<String> instructions(String script) {
+        List<String> instructions = new ArrayList<>();
+        StringBuilder courante = new StringBuilder();
+        int n = script.length();
+        for (int i = 0; i < n; i++) {
+            char c = script.charAt(i);
+            if (c == '\'' || c == '"') {
+                int fin = finDeCitation(script, i, c);
+                courante.append(script, i, fin);
+                i = fin - 1;
+            } else if (c == '-' && i + 1 < n && script.charAt(i + 1) == '-') {
+                int eol = script.indexOf('\n', i);
+                i = (eol < 0 ? n : eol) - 1;
+            } else if (c == '/' && i + 1 < n && script.charAt(i + 1) == '*') {
+                int fin = script.indexOf("*/", i + 2);
+                i = (fin < 0 ? n : fin + 2) - 1;
+                courante.append(' ');
+            } else if (c == ';') {
+                ajouter(instructions, courante);
+            } else {
+                courante.append(c);
+            }
+        }
+        ajouter(instructions, courante);
+        return instructions;
+    }
+
+    // Chaines litterales remplacees par CAST(? AS VARCHAR) : le type reste connu meme dans une
+    // liste SELECT, et la base convertit vers le type de la colonne
+    static Parametree parametrer(String instruction) {
+        StringBuilder sql = new StringBuilder(instruction.length());
+        List<Object> valeurs = new ArrayList<>();
+        int n = instruction.length();
+        for (int i = 0; i < n; i++) {
+            char c = instruction.charAt(i);
+            if (c == '\'') {
+                int fin = finDeCitation(instruction, i, '\'');
+                valeurs.add(instruction.substring(i + 1, fin - 1).replace("''", "'"));
+                sql.append("CAST(? AS VARCHAR)");
+                i = fin - 1;
+            } else if (c == '"') {
+                int fin = finDeCitation(instruction, i, '"');
+                sql.append(instruction, i, fin);
+                i = fin - 1;
+            } else {
+                sql.append(c);
+            }
+        }
+        return new Parametree(sql.toString(), valeurs.toArray());
+    }
+
+    // Indice juste apres la citation ouverte en debut (le guillemet double sert d'echappement)
+    private static int finDeCitation(String s, int debut, char guillemet) {
+        int i = debut + 1;
+        while (i < s.length()) {
+            if (s.charAt(i) == guillemet) {
+                if (i + 1 < s.length() && s.charAt(i + 1) == guillemet) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return s.length();
+    }
+
+    private static void ajouter(List<String> instructions, StringBuilder courante) {
+        String instruction = courante.toString().trim();
+        if (!instruction.isEmpty()) instructions.add(instruction);
+        courante.setLength(0);
+    }
+
+    static final class Parametree {
+        final String sql;
+        final Object[] valeurs;
+
+        Parametree(String sql, Object[] valeurs) {
+            this.sql = sql;
+            this.valeurs = valeurs;
+        }
+    }
+}
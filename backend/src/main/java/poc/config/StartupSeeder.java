@@ -0,0 +1,119 @@
+package poc.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+// Donnees initiales au demarrage : empreintes des sources deja chargees (table empreinte_seed) pour
+// ne pas recharger ce qui n'a pas change, et execution de data.sql par lots de requetes preparees.
+@Component
+public class StartupSeeder {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupSeeder.class);
+
+    @Autowired private JdbcTemplate jdbc;
+
+    @Value("${fesup.import.batch-size:500}")
+    private int tailleLot;
+
+    // SHA-256 des fichiers (nom et contenu), dans l'ordre des noms
+    public String empreinte(List<File> fichiers) {
+        List<File> tries = new ArrayList<>(fichiers);
+        tries.sort(Comparator.comparing(File::getName));
+        MessageDigest digest = sha256();
+        try {
+            for (File f : tries) {
+                digest.update(f.getName().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                try (InputStream in = Files.newInputStream(f.toPath())) {
+                    byte[] tampon = new byte[64 * 1024];
+                    for (int n; (n = in.read(tampon)) > 0; ) digest.update(tampon, 0, n);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public String empreinte(byte[] contenu) {
+        return HexFormat.of().formatHex(sha256().digest(contenu));
+    }
+
+    // Vrai si la source a deja ete chargee avec ce contenu
+    public boolean aJour(String source, String empreinte) {
+        List<String> connue = jdbc.queryForList("SELECT empreinte FROM empreinte_seed WHERE source = ?", String.class, source);
+        return !connue.isEmpty() && connue.get(0).equals(empreinte);
+    }
+
+    public void enregistrer(String source, String empreinte) {
+        jdbc.update("MERGE INTO empreinte_seed (source, empreinte, charge_le) KEY (source) VALUES (?, ?, CURRENT_TIMESTAMP)",
+                source, empreinte);
+    }
+
+    // Instructions consecutives de meme forme regroupees en un lot ; un lot en echec est rejoue
+    // instruction par instruction pour isoler les lignes fautives. Renvoie le nombre d'instructions executees.
+    public int executerScript(Resource script) throws IOException {
+        return executerScript(new String(script.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    int executerScript(String script) {
+        int executees = 0;
+        String forme = null;
+        List<Object[]> lot = new ArrayList<>();
+        for (String instruction : SqlScript.instructions(script)) {
+            SqlScript.Parametree p = SqlScript.parametrer(instruction);
+            if (!p.sql.equals(forme) || lot.size() >= tailleLot) {
+                executees += executerLot(forme, lot);
+                forme = p.sql;
+            }
+            lot.add(p.valeurs);
+        }
+        return executees + executerLot(forme, lot);
+    }
+
+    private int executerLot(String sql, List<Object[]> lot) {
+        if (lot.isEmpty()) return 0;
+        int executees = lot.size();
+        try {
+            jdbc.batchUpdate(sql, lot);
+        } catch (RuntimeException e) {
+            executees = 0;
+            for (Object[] valeurs : lot) {
+                try {
+                    jdbc.update(sql, valeurs);
+                    executees++;
+                } catch (RuntimeException ligne) {
+                    log.warn("Instruction de donnees initiales ignoree : {}", ligne.getMessage());
+                }
+            }
+        }
+        lot.clear();
+        return executees;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
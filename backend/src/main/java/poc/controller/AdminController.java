@@ -1,15 +1,21 @@
 package poc.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import poc.dto.AffectationLigne;
+import poc.dto.EtudiantLigne;
+import poc.dto.SimulationRequest;
+import poc.dto.VoeuLigne;
 import poc.model.*;
 import poc.repository.*;
 import poc.service.*;
+import poc.service.DonneesModifiees.Perimetre;
 
 import java.util.List;
 import java.util.Map;
@@ -19,31 +25,82 @@ import java.util.Map;
 public class AdminController {
 
     @Autowired private CsvImportService importService;
+    @Autowired private VoeuImportService voeuImportService;
     @Autowired private AssignmentService assignmentService;
+    @Autowired private IncrementalAssignmentService incrementalAssignmentService;
     @Autowired private PdfService pdfService;
     @Autowired private StatisticsService statisticsService;
+    @Autowired private PipelineMetrics pipelineMetrics;
+    @Autowired private ListingService listingService;
+    @Autowired private EventSnapshotService eventSnapshotService;
+    @Autowired private SimulationService simulationService;
+    @Autowired private ApplicationEventPublisher publisher;
     @Autowired private EtudiantRepository etudiantRepository;
     @Autowired private VoeuRepository voeuRepository;
+    @Autowired private AffectationRepository affectationRepository;
     @Autowired private ActiviteRepository activiteRepository;
     @Autowired private LyceeRepository lyceeRepository;
 
     @PostMapping("/import")
-    public ResponseEntity<String> importData(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> importData(@RequestParam("file") MultipartFile file) {
         if (file.isEmpty()) return ResponseEntity.badRequest().body("Fichier vide");
         try {
-            importService.importerEleves(file);
-            return ResponseEntity.ok("Import reussi !");
+            return ResponseEntity.ok(importService.importerEleves(file));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erreur import : " + e.getMessage());
+        } finally {
+            // L'import peut creer des lycees
+            publier(Perimetre.LYCEES, Perimetre.ELEVES);
+        }
+    }
+
+    // Fichier de voeux Eleves_Voeux.csv (eleves + 5 voeux par ligne)
+    @PostMapping("/import/voeux")
+    public ResponseEntity<?> importVoeux(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) return ResponseEntity.badRequest().body("Fichier vide");
+        try {
+            return ResponseEntity.ok(voeuImportService.importerVoeux(file));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Erreur import : " + e.getMessage());
+        } finally {
+            publier(Perimetre.LYCEES, Perimetre.ELEVES, Perimetre.VOEUX);
         }
     }
 
     @PostMapping("/assign")
-    public ResponseEntity<String> runAssignment() {
+    public ResponseEntity<?> runAssignment(@RequestParam(defaultValue = "voeux") String mode,
+                                           @RequestParam(required = false) Integer tirages,
+                                           @RequestParam(required = false) Long graine) {
+        if (!List.of("voeux", "planning", "optimal", "loterie", "incremental").contains(mode)) {
+            return ResponseEntity.badRequest().body("Mode d'affectation inconnu : " + mode);
+        }
+        long debut = System.nanoTime();
+        boolean succes = false;
         try {
-            return ResponseEntity.ok(assignmentService.runAssignment());
+            Object resultat = switch (mode) {
+                case "voeux" -> assignmentService.runAssignment();
+                case "planning" -> assignmentService.runPlanning();
+                case "optimal" -> assignmentService.runOptimal();
+                case "loterie" -> assignmentService.runLoterie(tirages, graine);
+                default -> incrementalAssignmentService.runIncremental();
+            };
+            succes = true;
+            return ResponseEntity.ok(resultat);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("Erreur affectation : " + e.getMessage());
+        } finally {
+            publier(Perimetre.AFFECTATIONS);
+            pipelineMetrics.affectation(mode, System.nanoTime() - debut, succes);
+        }
+    }
+
+    // "Et si" sur les jauges : affectation recalculee en memoire, ecarts avec le resultat enregistre
+    @PostMapping("/simulation")
+    public ResponseEntity<?> simulate(@RequestBody SimulationRequest demande) {
+        try {
+            return ResponseEntity.ok(simulationService.simuler(demande));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
@@ -52,13 +109,28 @@ public class AdminController {
         return ResponseEntity.ok(assignmentService.getAllAffectations());
     }
 
+    // Filtrable par lycee ou par demi-journee pour produire un document par envoi ;
+    // format=zip decoupe en un PDF par lycee et par demi-journee
     @GetMapping("/export/pdf")
-    public ResponseEntity<InputStreamResource> exportPdf() {
-        var bis = pdfService.generateTickets(assignmentService.getAllAffectations());
+    public ResponseEntity<StreamingResponseBody> exportPdf(@RequestParam(required = false) Long lyceeId,
+                                                           @RequestParam(required = false) String demiJournee,
+                                                           @RequestParam(defaultValue = "pdf") String format) {
+        if ("zip".equals(format)) {
+            StreamingResponseBody zip = pipelineMetrics.export("zip", out -> pdfService.writeTicketsZip(out, lyceeId, demiJournee));
+            String archive = PdfService.nomFichier(lyceeId, demiJournee).replace(".pdf", ".zip");
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + archive)
+                    .header(HttpHeaders.CONTENT_TYPE, "application/zip")
+                    .body(zip);
+        }
+        if (!"pdf".equals(format)) return ResponseEntity.badRequest().build();
+
+        StreamingResponseBody body = pipelineMetrics.export("pdf", out -> pdfService.writeTickets(out, lyceeId, demiJournee));
+        String filename = PdfService.nomFichier(lyceeId, demiJournee);
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=convocations.pdf")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
                 .contentType(MediaType.APPLICATION_PDF)
-                .body(new InputStreamResource(bis));
+                .body(body);
     }
 
     // Database CRUD
@@ -68,24 +140,117 @@ public class AdminController {
     @GetMapping("/voeux")
     public List<Voeu> getAllVoeux() { return voeuRepository.findAll(); }
 
+    // Listes en lignes plates : une requete SQL chacune, sans graphe d'entites a serialiser
+    @GetMapping("/lignes/etudiants")
+    public List<EtudiantLigne> getEtudiantsLignes() { return etudiantRepository.findAllLignes(); }
+
+    @GetMapping("/lignes/voeux")
+    public List<VoeuLigne> getVoeuxLignes() { return voeuRepository.findAllLignes(); }
+
+    @GetMapping("/lignes/affectations")
+    public List<AffectationLigne> getAffectationsLignes() { return affectationRepository.findAllLignes(); }
+
+    // Pages par cle : ?curseur= (champ "suivant" de la page precedente), filtres lyceeId / classe / demiJournee
+    @GetMapping("/pages/{liste}")
+    public ResponseEntity<StreamingResponseBody> getPage(@PathVariable String liste,
+                                                         @RequestParam(required = false) String curseur,
+                                                         @RequestParam(defaultValue = "200") int taille,
+                                                         @RequestParam(required = false) Long lyceeId,
+                                                         @RequestParam(required = false) String classe,
+                                                         @RequestParam(required = false) String demiJournee) {
+        if (!ListingService.existe(liste)) return ResponseEntity.notFound().build();
+        ListingService.Filtre filtre = new ListingService.Filtre(lyceeId, classe, demiJournee);
+        // Curseur verifie avant d'envoyer l'en-tete 200
+        try {
+            listingService.verifierCurseur(liste, curseur);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> listingService.ecrirePage(out, liste, filtre, curseur, taille));
+    }
+
+    // Liste complete en un tableau JSON ecrit au fil de la lecture (memoire constante)
+    @GetMapping("/export/json/{liste}")
+    public ResponseEntity<StreamingResponseBody> exportJson(@PathVariable String liste,
+                                                            @RequestParam(required = false) Long lyceeId,
+                                                            @RequestParam(required = false) String classe,
+                                                            @RequestParam(required = false) String demiJournee) {
+        if (!ListingService.existe(liste)) return ResponseEntity.notFound().build();
+        ListingService.Filtre filtre = new ListingService.Filtre(lyceeId, classe, demiJournee);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + liste + ".json")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(pipelineMetrics.export("json", out -> listingService.ecrireTout(out, liste, filtre)));
+    }
+
+    @GetMapping("/snapshots")
+    public ResponseEntity<?> listSnapshots() {
+        try {
+            return ResponseEntity.ok(eventSnapshotService.lister());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Erreur instantanes : " + e.getMessage());
+        }
+    }
+
+    // Instantane de l'etat de l'evenement, a prendre avant une operation risquee
+    @PostMapping("/snapshots")
+    public ResponseEntity<?> createSnapshot() {
+        try {
+            return ResponseEntity.ok(eventSnapshotService.sauvegarder());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Erreur instantane : " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/snapshots/{nom}/restore")
+    public ResponseEntity<?> restoreSnapshot(@PathVariable String nom) {
+        try {
+            return ResponseEntity.ok(eventSnapshotService.restaurer(nom));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Erreur restauration : " + e.getMessage());
+        } finally {
+            // Tout l'etat a pu changer
+            publisher.publishEvent(DonneesModifiees.tout(this));
+        }
+    }
+
     @DeleteMapping("/etudiants/{id}")
     public ResponseEntity<String> deleteEtudiant(@PathVariable Long id) {
-        return deleteEntity(() -> etudiantRepository.deleteById(id), "Etudiant");
+        return deleteEntity(() -> {
+            etudiantRepository.deleteById(id);
+            // Les jetons deja verifies de cet eleve ne doivent plus passer
+            publier(Perimetre.ELEVES);
+        }, "Etudiant");
     }
 
     @DeleteMapping("/activites/{id}")
     public ResponseEntity<String> deleteActivite(@PathVariable Long id) {
-        return deleteEntity(() -> activiteRepository.deleteById(id), "Activite");
+        return deleteEntity(() -> {
+            activiteRepository.deleteById(id);
+            publier(Perimetre.ACTIVITES);
+        }, "Activite");
     }
 
     @DeleteMapping("/lycees/{id}")
     public ResponseEntity<String> deleteLycee(@PathVariable Long id) {
-        return deleteEntity(() -> lyceeRepository.deleteById(id), "Lycee");
+        return deleteEntity(() -> {
+            lyceeRepository.deleteById(id);
+            publier(Perimetre.LYCEES);
+        }, "Lycee");
     }
 
     @GetMapping("/statistics")
     public Map<String, Object> getStatistics() { return statisticsService.getGlobalStatistics(); }
 
+    // Chaque cache concerne s'invalide en ecoutant l'evenement
+    private void publier(Perimetre premier, Perimetre... autres) {
+        publisher.publishEvent(new DonneesModifiees(this, premier, autres));
+    }
+
     private ResponseEntity<String> deleteEntity(Runnable action, String name) {
         try {
             action.run();
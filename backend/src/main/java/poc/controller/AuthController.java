@@ -13,6 +13,7 @@ import poc.repository.AdminRepository;
 import poc.repository.EtudiantRepository;
 import poc.repository.ViewerRepository;
 import poc.security.JwtUtils;
+import poc.service.EtudiantIdentityIndex;
 
 import java.util.Map;
 import java.util.Optional;
@@ -25,14 +26,16 @@ public class AuthController {
     @Autowired private AdminRepository adminRepository;
     @Autowired private ViewerRepository viewerRepository;
     @Autowired private JwtUtils jwtUtils;
+    @Autowired private EtudiantIdentityIndex etudiantIdentityIndex;
 
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody LoginRequest request) {
-        Optional<Etudiant> etudiant = etudiantRepository.findByMatriculeCsv(request.getMatricule());
-        if (etudiant.isEmpty()) etudiant = etudiantRepository.findByIne(request.getMatricule());
+        // Identifiant inconnu de l'index : rejete sans acces a la base
+        long id = etudiantIdentityIndex.chercher(request.getMatricule());
+        Optional<Etudiant> etudiant = id >= 0 ? etudiantRepository.findById(id) : Optional.empty();
 
         if (etudiant.isPresent()) {
-            String token = jwtUtils.generateToken(etudiant.get().getMatriculeCsv());
+            String token = jwtUtils.generateToken(etudiant.get().getMatriculeCsv(), "ETUDIANT");
             return ResponseEntity.ok(new AuthResponse(token, etudiant.get()));
         }
         return ResponseEntity.status(401).body("Identifiant incorrect");
@@ -42,7 +45,7 @@ public class AuthController {
     public ResponseEntity<?> loginAdmin(@RequestBody AdminLoginRequest request) {
         Optional<Admin> admin = adminRepository.findByUsername(request.getUsername());
         if (admin.isPresent() && admin.get().getPassword().equals(request.getPassword())) {
-            String token = jwtUtils.generateToken(admin.get().getUsername());
+            String token = jwtUtils.generateToken(admin.get().getUsername(), admin.get().getRole().name());
             return ResponseEntity.ok(Map.of(
                     "token", token,
                     "role", admin.get().getRole(),
@@ -56,7 +59,7 @@ public class AuthController {
         Optional<Viewer> viewer = viewerRepository.findByEmail(request.getUsername().toLowerCase());
         if (viewer.isPresent() && viewer.get().getPassword().equals(request.getPassword())) {
             Viewer v = viewer.get();
-            String token = jwtUtils.generateToken(v.getEmail());
+            String token = jwtUtils.generateToken(v.getEmail(), "VIEWER");
             return ResponseEntity.ok(Map.of(
                     "token", token, "role", "VIEWER",
                     "email", v.getEmail(), "nom", v.getNom(), "prenom", v.getPrenom(),
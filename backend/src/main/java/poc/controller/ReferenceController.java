@@ -1,24 +1,43 @@
 package poc.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import poc.model.Activite;
-import poc.model.Lycee;
-import poc.repository.ActiviteRepository;
-import poc.repository.LyceeRepository;
-
-import java.util.List;
+import poc.service.ReferenceDataCache;
 
+// Servi depuis ReferenceDataCache : JSON pre-serialise, revalidation par ETag / If-None-Match
 @RestController
 @RequestMapping("/api/referentiel")
 public class ReferenceController {
 
-    @Autowired private ActiviteRepository activiteRepository;
-    @Autowired private LyceeRepository lyceeRepository;
+    @Autowired private ReferenceDataCache referenceDataCache;
 
     @GetMapping("/activites")
-    public List<Activite> getActivites() { return activiteRepository.findAll(); }
+    public ResponseEntity<byte[]> getActivites(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return servir(referenceDataCache.snapshot().activitesJson(), ifNoneMatch);
+    }
 
     @GetMapping("/lycees")
-    public List<Lycee> getLycees() { return lyceeRepository.findAll(); }
+    public ResponseEntity<byte[]> getLycees(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return servir(referenceDataCache.snapshot().lyceesJson(), ifNoneMatch);
+    }
+
+    private ResponseEntity<byte[]> servir(ReferenceDataCache.Json json, String ifNoneMatch) {
+        // no-cache : le navigateur garde la reponse mais revalide a chaque fois (304 sans corps)
+        if (ifNoneMatch != null && (ifNoneMatch.contains(json.etag()) || ifNoneMatch.trim().equals("*"))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(json.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(json.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json.corps());
+    }
 }
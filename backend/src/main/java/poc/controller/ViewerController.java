@@ -3,15 +3,15 @@ package poc.controller;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import poc.dto.VoeuLigne;
 import poc.model.Etudiant;
 import poc.model.Voeu;
 import poc.repository.EtudiantRepository;
 import poc.repository.VoeuRepository;
+import poc.service.StatisticsService;
 
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/viewer")
@@ -21,6 +21,8 @@ public class ViewerController {
     private EtudiantRepository etudiantRepository;
     @Autowired
     private VoeuRepository voeuRepository;
+    @Autowired
+    private StatisticsService statisticsService;
 
     @GetMapping("/etudiants/{lyceeId}")
     public ResponseEntity<List<Etudiant>> getEtudiantsByLycee(@PathVariable Long lyceeId) {
@@ -32,23 +34,14 @@ public class ViewerController {
         return ResponseEntity.ok(voeuRepository.findByEtudiantLyceeId(lyceeId));
     }
 
+    // Variante plate de /voeux/{lyceeId} : une requete, sans les entites Etudiant et Activite
+    @GetMapping("/lignes/voeux/{lyceeId}")
+    public ResponseEntity<List<VoeuLigne>> getVoeuxLignesByLycee(@PathVariable Long lyceeId) {
+        return ResponseEntity.ok(voeuRepository.findLignesByLyceeId(lyceeId));
+    }
+
     @GetMapping("/stats/{lyceeId}")
     public ResponseEntity<Map<String, Object>> getStatsByLycee(@PathVariable Long lyceeId) {
-        List<Etudiant> etudiants = etudiantRepository.findByLyceeId(lyceeId);
-        List<Voeu> voeux = voeuRepository.findByEtudiantLyceeId(lyceeId);
-
-        Set<Long> etudiantsAvecVoeux = voeux.stream()
-                .map(v -> v.getEtudiant().getId())
-                .collect(Collectors.toSet());
-
-        long avecVoeux = etudiantsAvecVoeux.size();
-        int total = etudiants.size();
-
-        return ResponseEntity.ok(Map.of(
-                "totalStudents", total,
-                "studentsWithVoeux", avecVoeux,
-                "studentsWithoutVoeux", total - avecVoeux,
-                "totalVoeux", voeux.size(),
-                "participationRate", total > 0 ? (avecVoeux * 100.0 / total) : 0));
+        return ResponseEntity.ok(statisticsService.getStatistiquesLycee(lyceeId));
     }
 }
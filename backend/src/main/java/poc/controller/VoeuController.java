@@ -3,6 +3,7 @@ package poc.controller;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import poc.service.PipelineMetrics;
 import poc.service.VoeuService;
 
 import java.util.List;
@@ -16,6 +17,8 @@ public class VoeuController {
     private VoeuService voeuService;
     @Autowired
     private poc.repository.EtudiantRepository etudiantRepository;
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
 
     @GetMapping("/etudiant/{matricule}")
     public ResponseEntity<?> getEtudiant(@PathVariable String matricule) {
@@ -26,6 +29,7 @@ public class VoeuController {
 
     @PostMapping(produces = "text/plain")
     public ResponseEntity<String> enregistrerVoeux(@RequestBody Map<String, Object> payload) {
+        long debut = System.nanoTime();
         try {
             Long etudiantId = Long.valueOf(payload.get("etudiantId").toString());
             List<?> rawIds = (List<?>) payload.get("activitesIds");
@@ -34,8 +38,10 @@ public class VoeuController {
                     .toList();
 
             voeuService.enregistrerVoeux(etudiantId, activitesIds);
+            pipelineMetrics.voeuxSoumis(System.nanoTime() - debut, true);
             return ResponseEntity.ok("Voeux enregistres avec succes !");
         } catch (Exception e) {
+            pipelineMetrics.voeuxSoumis(System.nanoTime() - debut, false);
             return ResponseEntity.badRequest().body("Erreur : " + e.getMessage());
         }
     }
@@ -0,0 +1,38 @@
+package poc.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AffectationDiff {
+    private Long etudiantId;
+    private List<Long> activitesRetirees = new ArrayList<>();
+    private List<Long> activitesAjoutees = new ArrayList<>();
+
+    public AffectationDiff(Long etudiantId) {
+        this.etudiantId = etudiantId;
+    }
+
+    public Long getEtudiantId() {
+        return etudiantId;
+    }
+
+    public void setEtudiantId(Long etudiantId) {
+        this.etudiantId = etudiantId;
+    }
+
+    public List<Long> getActivitesRetirees() {
+        return activitesRetirees;
+    }
+
+    public void setActivitesRetirees(List<Long> activitesRetirees) {
+        this.activitesRetirees = activitesRetirees;
+    }
+
+    public List<Long> getActivitesAjoutees() {
+        return activitesAjoutees;
+    }
+
+    public void setActivitesAjoutees(List<Long> activitesAjoutees) {
+        this.activitesAjoutees = activitesAjoutees;
+    }
+}
@@ -0,0 +1,75 @@
+package poc.dto;
+
+// Ligne plate d'une affectation : eleve et lycee a plat, activite par son id
+public class AffectationLigne {
+    private Long id;
+    private Long etudiantId;
+    private String matriculeCsv;
+    private String nom;
+    private String prenom;
+    private String classe;
+    private String lyceeNom;
+    private Long activiteId;
+    private Integer rangVoeu;
+    private Integer slot;
+    private String salle;
+
+    public AffectationLigne(Long id, Long etudiantId, String matriculeCsv, String nom, String prenom,
+            String classe, String lyceeNom, Long activiteId, Integer rangVoeu, Integer slot, String salle) {
+        this.id = id;
+        this.etudiantId = etudiantId;
+        this.matriculeCsv = matriculeCsv;
+        this.nom = nom;
+        this.prenom = prenom;
+        this.classe = classe;
+        this.lyceeNom = lyceeNom;
+        this.activiteId = activiteId;
+        this.rangVoeu = rangVoeu;
+        this.slot = slot;
+        this.salle = salle;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getEtudiantId() {
+        return etudiantId;
+    }
+
+    public String getMatriculeCsv() {
+        return matriculeCsv;
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    public String getPrenom() {
+        return prenom;
+    }
+
+    public String getClasse() {
+        return classe;
+    }
+
+    public String getLyceeNom() {
+        return lyceeNom;
+    }
+
+    public Long getActiviteId() {
+        return activiteId;
+    }
+
+    public Integer getRangVoeu() {
+        return rangVoeu;
+    }
+
+    public Integer getSlot() {
+        return slot;
+    }
+
+    public String getSalle() {
+        return salle;
+    }
+}
@@ -0,0 +1,75 @@
+package poc.dto;
+
+// Ligne plate d'un eleve pour les listes en masse (nom du lycee au lieu de l'entite)
+public class EtudiantLigne {
+    private Long id;
+    private String matriculeCsv;
+    private String ine;
+    private String nom;
+    private String prenom;
+    private String classe;
+    private String serieBac;
+    private String demiJournee;
+    private Integer creneau;
+    private Long lyceeId;
+    private String lyceeNom;
+
+    public EtudiantLigne(Long id, String matriculeCsv, String ine, String nom, String prenom, String classe,
+            String serieBac, String demiJournee, Integer creneau, Long lyceeId, String lyceeNom) {
+        this.id = id;
+        this.matriculeCsv = matriculeCsv;
+        this.ine = ine;
+        this.nom = nom;
+        this.prenom = prenom;
+        this.classe = classe;
+        this.serieBac = serieBac;
+        this.demiJournee = demiJournee;
+        this.creneau = creneau;
+        this.lyceeId = lyceeId;
+        this.lyceeNom = lyceeNom;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getMatriculeCsv() {
+        return matriculeCsv;
+    }
+
+    public String getIne() {
+        return ine;
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    public String getPrenom() {
+        return prenom;
+    }
+
+    public String getClasse() {
+        return classe;
+    }
+
+    public String getSerieBac() {
+        return serieBac;
+    }
+
+    public String getDemiJournee() {
+        return demiJournee;
+    }
+
+    public Integer getCreneau() {
+        return creneau;
+    }
+
+    public Long getLyceeId() {
+        return lyceeId;
+    }
+
+    public String getLyceeNom() {
+        return lyceeNom;
+    }
+}
@@ -0,0 +1,103 @@
+package poc.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ImportReport {
+    // Au-dela, les lignes rejetees sont seulement comptees
+    private static final int MAX_REJETS = 100;
+
+    private String fichier;
+    private int inseres;
+    private int misAJour;
+    private int ignores;
+    private int voeux;
+    private long dureeMs;
+    private List<String> rejets = new ArrayList<>();
+    // Nombre de lignes rejetees par categorie de motif (toutes, meme au-dela de MAX_REJETS)
+    private Map<String, Integer> rejetsParCategorie = new TreeMap<>();
+
+    public ImportReport(String fichier) {
+        this.fichier = fichier;
+    }
+
+    public String getFichier() {
+        return fichier;
+    }
+
+    public void setFichier(String fichier) {
+        this.fichier = fichier;
+    }
+
+    public int getInseres() {
+        return inseres;
+    }
+
+    public void setInseres(int inseres) {
+        this.inseres = inseres;
+    }
+
+    public int getMisAJour() {
+        return misAJour;
+    }
+
+    public void setMisAJour(int misAJour) {
+        this.misAJour = misAJour;
+    }
+
+    public int getIgnores() {
+        return ignores;
+    }
+
+    public void setIgnores(int ignores) {
+        this.ignores = ignores;
+    }
+
+    public int getVoeux() {
+        return voeux;
+    }
+
+    public void setVoeux(int voeux) {
+        this.voeux = voeux;
+    }
+
+    public List<String> getRejets() {
+        return rejets;
+    }
+
+    public void setRejets(List<String> rejets) {
+        this.rejets = rejets;
+    }
+
+    public Map<String, Integer> getRejetsParCategorie() {
+        return rejetsParCategorie;
+    }
+
+    public void setRejetsParCategorie(Map<String, Integer> rejetsParCategorie) {
+        this.rejetsParCategorie = rejetsParCategorie;
+    }
+
+    // Ligne ignoree avec sa categorie et son motif
+    public void rejeter(String categorie, String motif) {
+        ignores++;
+        rejetsParCategorie.merge(categorie, 1, Integer::sum);
+        if (rejets.size() < MAX_REJETS) rejets.add(motif);
+    }
+
+    public long getDureeMs() {
+        return dureeMs;
+    }
+
+    public void setDureeMs(long dureeMs) {
+        this.dureeMs = dureeMs;
+    }
+
+    @Override
+    public String toString() {
+        return fichier + " : " + inseres + " inseres, " + misAJour + " mis a jour, "
+                + ignores + " ignores, " + voeux + " voeux (" + dureeMs + " ms)"
+                + (rejetsParCategorie.isEmpty() ? "" : ", rejets " + rejetsParCategorie);
+    }
+}
@@ -0,0 +1,47 @@
+package poc.dto;
+
+import java.util.Map;
+
+// Hypotheses d'une simulation (POST /api/admin/simulation), par id d'activite
+public class SimulationRequest {
+    // Par defaut le mode du calcul enregistre (voeux, optimal, loterie ou planning), qui seul est accepte ;
+    // graine : remplace celle du calcul enregistre pour les modes tires au sort
+    private String mode;
+    private Long graine;
+    // Nouvelle jauge d'une activite
+    private Map<Long, Integer> capacites;
+    // Sessions ajoutees a une activite, chacune de la jauge (eventuellement modifiee) de l'activite
+    private Map<Long, Integer> sessionsSupplementaires;
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public Long getGraine() {
+        return graine;
+    }
+
+    public void setGraine(Long graine) {
+        this.graine = graine;
+    }
+
+    public Map<Long, Integer> getCapacites() {
+        return capacites;
+    }
+
+    public void setCapacites(Map<Long, Integer> capacites) {
+        this.capacites = capacites;
+    }
+
+    public Map<Long, Integer> getSessionsSupplementaires() {
+        return sessionsSupplementaires;
+    }
+
+    public void setSessionsSupplementaires(Map<Long, Integer> sessionsSupplementaires) {
+        this.sessionsSupplementaires = sessionsSupplementaires;
+    }
+}
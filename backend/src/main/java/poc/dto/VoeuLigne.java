@@ -0,0 +1,63 @@
+package poc.dto;
+
+// Ligne plate d'un voeu : eleve et lycee a plat, activite par son id (titres dans le referentiel)
+public class VoeuLigne {
+    private Long id;
+    private Long etudiantId;
+    private String matriculeCsv;
+    private String nom;
+    private String prenom;
+    private String classe;
+    private String lyceeNom;
+    private Long activiteId;
+    private Integer priorite;
+
+    public VoeuLigne(Long id, Long etudiantId, String matriculeCsv, String nom, String prenom, String classe,
+            String lyceeNom, Long activiteId, Integer priorite) {
+        this.id = id;
+        this.etudiantId = etudiantId;
+        this.matriculeCsv = matriculeCsv;
+        this.nom = nom;
+        this.prenom = prenom;
+        this.classe = classe;
+        this.lyceeNom = lyceeNom;
+        this.activiteId = activiteId;
+        this.priorite = priorite;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getEtudiantId() {
+        return etudiantId;
+    }
+
+    public String getMatriculeCsv() {
+        return matriculeCsv;
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    public String getPrenom() {
+        return prenom;
+    }
+
+    public String getClasse() {
+        return classe;
+    }
+
+    public String getLyceeNom() {
+        return lyceeNom;
+    }
+
+    public Long getActiviteId() {
+        return activiteId;
+    }
+
+    public Integer getPriorite() {
+        return priorite;
+    }
+}
@@ -19,6 +19,10 @@ public class Affectation {
 
     private Integer rangVoeu; // 1, 2, 3, 4, 5 (or null if forced assignment)
 
+    private Integer slot; // 0 to 4 within the half-day (null if no schedule)
+
+    private String salle; // Room of the session (null if no schedule)
+
     public Affectation() {
     }
 
@@ -60,4 +64,20 @@ public class Affectation {
     public void setRangVoeu(Integer rangVoeu) {
         this.rangVoeu = rangVoeu;
     }
+
+    public Integer getSlot() {
+        return slot;
+    }
+
+    public void setSlot(Integer slot) {
+        this.slot = slot;
+    }
+
+    public String getSalle() {
+        return salle;
+    }
+
+    public void setSalle(String salle) {
+        this.salle = salle;
+    }
 }
@@ -0,0 +1,82 @@
+package poc.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Calcul complet ayant produit les affectations enregistrees (POST /api/admin/assign) : le mode et,
+// pour les modes tires au sort (voeux, loterie), la graine qui rejoue exactement l'affectation sur
+// les memes donnees (?mode=loterie&graine=...). La simulation recalcule avec le meme moteur.
+// Une mise a jour incrementale ajoute une ligne sans graine (mode incremental).
+@Entity
+@Table(name = "calcul_affectation")
+public class CalculAffectation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // voeux, optimal, loterie, planning ou incremental
+    @Column(nullable = false, length = 20)
+    private String mode;
+
+    private Long graine;
+
+    // Loterie : nombre de tirages compares
+    @Column(name = "nb_tirages")
+    private Integer nbTirages;
+
+    // Loterie : note du tirage retenu, en JSON
+    @Column(length = 1000)
+    private String score;
+
+    @Column(name = "calcule_le")
+    private LocalDateTime calculeLe;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public Long getGraine() {
+        return graine;
+    }
+
+    public void setGraine(Long graine) {
+        this.graine = graine;
+    }
+
+    public Integer getNbTirages() {
+        return nbTirages;
+    }
+
+    public void setNbTirages(Integer nbTirages) {
+        this.nbTirages = nbTirages;
+    }
+
+    public String getScore() {
+        return score;
+    }
+
+    public void setScore(String score) {
+        this.score = score;
+    }
+
+    public LocalDateTime getCalculeLe() {
+        return calculeLe;
+    }
+
+    public void setCalculeLe(LocalDateTime calculeLe) {
+        this.calculeLe = calculeLe;
+    }
+}
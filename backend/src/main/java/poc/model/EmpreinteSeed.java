@@ -0,0 +1,44 @@
+package poc.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Empreinte (SHA-256) d'une source de donnees initiales deja chargee : data.sql ou le dossier Inputs/.
+// Table geree par Hibernate : elle disparait avec les donnees quand le schema est recree.
+@Entity
+@Table(name = "empreinte_seed")
+public class EmpreinteSeed {
+    @Id
+    private String source;
+
+    @Column(nullable = false)
+    private String empreinte;
+
+    @Column(name = "charge_le")
+    private LocalDateTime chargeLe;
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public String getEmpreinte() {
+        return empreinte;
+    }
+
+    public void setEmpreinte(String empreinte) {
+        this.empreinte = empreinte;
+    }
+
+    public LocalDateTime getChargeLe() {
+        return chargeLe;
+    }
+
+    public void setChargeLe(LocalDateTime chargeLe) {
+        this.chargeLe = chargeLe;
+    }
+}
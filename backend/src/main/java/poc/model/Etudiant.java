@@ -35,6 +35,10 @@ public class Etudiant {
     @Column(name = "ine", unique = true, nullable = true)
     private String ine;
 
+    // Creneau d'arrivee (0 a 7 : jour/demi-journee/vague), determine les 4 slots valides
+    @Column(nullable = true)
+    private Integer creneau;
+
     // Getters et Setters
     public Long getId() {
         return id;
@@ -107,4 +111,12 @@ public class Etudiant {
     public void setIne(String ine) {
         this.ine = ine;
     }
+
+    public Integer getCreneau() {
+        return creneau;
+    }
+
+    public void setCreneau(Integer creneau) {
+        this.creneau = creneau;
+    }
 }
@@ -3,7 +3,8 @@ package poc.model;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "voeu")
+// Unicite (etudiant_id, priorite) comme dans database/init.sql : cle du MERGE de VoeuService
+@Table(name = "voeu", uniqueConstraints = @UniqueConstraint(columnNames = {"etudiant_id", "priorite"}))
 public class Voeu {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -3,6 +3,7 @@ package poc.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import poc.dto.AffectationLigne;
 import poc.model.Affectation;
 
 import java.util.List;
@@ -15,4 +16,9 @@ public interface AffectationRepository extends JpaRepository<Affectation, Long>
 
     @Query("SELECT COUNT(DISTINCT a.etudiant.id) FROM Affectation a")
     long countDistinctEtudiants();
+
+    @Query("SELECT new poc.dto.AffectationLigne(a.id, e.id, e.matriculeCsv, e.nom, e.prenom, e.classe, l.nom, "
+            + "a.activite.id, a.rangVoeu, a.slot, a.salle) FROM Affectation a JOIN a.etudiant e LEFT JOIN e.lycee l "
+            + "ORDER BY e.id, a.slot, a.id")
+    List<AffectationLigne> findAllLignes();
 }
@@ -1,7 +1,9 @@
 package poc.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import poc.dto.EtudiantLigne;
 import poc.model.Etudiant;
 
 import java.util.List;
@@ -12,4 +14,9 @@ public interface EtudiantRepository extends JpaRepository<Etudiant, Long> {
     Optional<Etudiant> findByMatriculeCsv(String matriculeCsv);
     Optional<Etudiant> findByIne(String ine);
     List<Etudiant> findByLyceeId(Long lyceeId);
+
+    // Une requete, une jointure : pas de chargement du graphe Lycee
+    @Query("SELECT new poc.dto.EtudiantLigne(e.id, e.matriculeCsv, e.ine, e.nom, e.prenom, e.classe, e.serieBac, "
+            + "e.demiJournee, e.creneau, l.id, l.nom) FROM Etudiant e LEFT JOIN e.lycee l ORDER BY e.id")
+    List<EtudiantLigne> findAllLignes();
 }
@@ -3,6 +3,7 @@ package poc.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import poc.dto.VoeuLigne;
 import poc.model.Voeu;
 
 import java.util.List;
@@ -16,4 +17,14 @@ public interface VoeuRepository extends JpaRepository<Voeu, Long> {
 
     @Query("SELECT v FROM Voeu v WHERE v.etudiant.lycee.id = :lyceeId")
     List<Voeu> findByEtudiantLyceeId(Long lyceeId);
+
+    // Lignes plates : eleve et lycee joints une fois, activite par sa cle etrangere
+    @Query("SELECT new poc.dto.VoeuLigne(v.id, e.id, e.matriculeCsv, e.nom, e.prenom, e.classe, l.nom, "
+            + "v.activite.id, v.priorite) FROM Voeu v JOIN v.etudiant e LEFT JOIN e.lycee l ORDER BY e.id, v.priorite")
+    List<VoeuLigne> findAllLignes();
+
+    @Query("SELECT new poc.dto.VoeuLigne(v.id, e.id, e.matriculeCsv, e.nom, e.prenom, e.classe, l.nom, "
+            + "v.activite.id, v.priorite) FROM Voeu v JOIN v.etudiant e JOIN e.lycee l WHERE l.id = :lyceeId "
+            + "ORDER BY e.id, v.priorite")
+    List<VoeuLigne> findLignesByLyceeId(Long lyceeId);
 }
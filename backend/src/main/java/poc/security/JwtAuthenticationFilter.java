@@ -0,0 +1,69 @@
+package poc.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+// Authentification par "Authorization: Bearer <jwt>". Un jeton deja vu est retrouve dans
+// VerifiedTokenCache par son empreinte : ni verification HS512 ni lecture en base.
+// Un jeton absent ou invalide laisse la requete anonyme (les regles d'acces decident).
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final JwtUtils jwtUtils;
+    private final JwtPrincipalResolver resolver;
+    private final VerifiedTokenCache cache;
+
+    public JwtAuthenticationFilter(JwtUtils jwtUtils, JwtPrincipalResolver resolver, VerifiedTokenCache cache) {
+        this.jwtUtils = jwtUtils;
+        this.resolver = resolver;
+        this.cache = cache;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER)) {
+            JwtPrincipal principal = authentifier(header.substring(BEARER.length()).trim());
+            if (principal != null) {
+                UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
+                        principal, null, List.of(new SimpleGrantedAuthority("ROLE_" + principal.getRole())));
+                SecurityContextHolder.getContext().setAuthentication(auth);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    private JwtPrincipal authentifier(String token) {
+        long maintenant = System.currentTimeMillis();
+        String empreinte = VerifiedTokenCache.empreinte(token);
+        JwtPrincipal principal = cache.get(empreinte, maintenant);
+        if (principal != null) return principal;
+
+        Claims claims;
+        try {
+            claims = jwtUtils.parseClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        Optional<JwtPrincipal> resolu = resolver.resoudre(claims.getSubject(), claims.get(JwtUtils.CLAIM_ROLE, String.class));
+        if (resolu.isEmpty()) return null;
+        long expiration = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+        cache.put(empreinte, resolu.get(), expiration, maintenant);
+        return resolu.get();
+    }
+}
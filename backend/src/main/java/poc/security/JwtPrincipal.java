@@ -0,0 +1,32 @@
+package poc.security;
+
+// Utilisateur authentifie par jeton : role (ETUDIANT, VIEWER, ADMIN, SUPER_ADMIN) et lycee
+// de rattachement (eleves et viewers, null pour les admins)
+public class JwtPrincipal {
+    private final String username;
+    private final String role;
+    private final Long lyceeId;
+
+    public JwtPrincipal(String username, String role, Long lyceeId) {
+        this.username = username;
+        this.role = role;
+        this.lyceeId = lyceeId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public Long getLyceeId() {
+        return lyceeId;
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
@@ -0,0 +1,42 @@
+package poc.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import poc.repository.AdminRepository;
+import poc.repository.EtudiantRepository;
+import poc.repository.ViewerRepository;
+
+import java.util.Optional;
+
+// Sujet du jeton -> principal. Le claim "role" designe le referentiel a interroger ; les jetons
+// emis sans ce claim sont cherches parmi les admins, puis les viewers, puis les eleves.
+@Component
+public class JwtPrincipalResolver {
+
+    @Autowired private EtudiantRepository etudiantRepository;
+    @Autowired private ViewerRepository viewerRepository;
+    @Autowired private AdminRepository adminRepository;
+
+    public Optional<JwtPrincipal> resoudre(String sujet, String role) {
+        if (sujet == null) return Optional.empty();
+        if ("ETUDIANT".equals(role)) return etudiant(sujet);
+        if ("VIEWER".equals(role)) return viewer(sujet);
+        if (role != null) return admin(sujet);
+        return admin(sujet).or(() -> viewer(sujet)).or(() -> etudiant(sujet));
+    }
+
+    private Optional<JwtPrincipal> etudiant(String matricule) {
+        return etudiantRepository.findByMatriculeCsv(matricule).map(e -> new JwtPrincipal(
+                e.getMatriculeCsv(), "ETUDIANT", e.getLycee() != null ? e.getLycee().getId() : null));
+    }
+
+    private Optional<JwtPrincipal> viewer(String email) {
+        return viewerRepository.findByEmail(email).map(v -> new JwtPrincipal(
+                v.getEmail(), "VIEWER", v.getLycee() != null ? v.getLycee().getId() : null));
+    }
+
+    private Optional<JwtPrincipal> admin(String username) {
+        return adminRepository.findByUsername(username).map(a -> new JwtPrincipal(
+                a.getUsername(), a.getRole().name(), null));
+    }
+}
@@ -2,37 +2,52 @@ package poc.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import java.security.Key;
 import java.util.Date;
 
 @Component
 public class JwtUtils {
+    private static final Logger log = LoggerFactory.getLogger(JwtUtils.class);
     private static final String JWT_SECRET = "FESUP2026_SECRET_KEY_VERY_LONG_AND_SECURE_FOR_HS512_ALGORITHM_EXTENDED_FOR_SECURITY_COMPLIANCE_TO_REACH_512_BITS";
     private static final int JWT_EXPIRATION_MS = 86400000; // 24 hours
+    // Type de compte (ETUDIANT, VIEWER, ADMIN, SUPER_ADMIN) : indique ou chercher le sujet
+    static final String CLAIM_ROLE = "role";
 
     private final Key key = Keys.hmacShaKeyFor(JWT_SECRET.getBytes());
+    // Immuable et thread-safe : construit une seule fois
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
 
     public String generateToken(String username) {
-        return Jwts.builder()
+        return generateToken(username, null);
+    }
+
+    public String generateToken(String username, String role) {
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(username)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + JWT_EXPIRATION_MS))
-                .signWith(key, SignatureAlgorithm.HS512)
-                .compact();
+                .setExpiration(new Date((new Date()).getTime() + JWT_EXPIRATION_MS));
+        if (role != null) builder.claim(CLAIM_ROLE, role);
+        return builder.signWith(key, SignatureAlgorithm.HS512).compact();
+    }
+
+    // Verifie la signature et l'expiration ; JwtException si le jeton est invalide
+    public Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build()
-                .parseClaimsJws(token).getBody().getSubject();
+        return parseClaims(token).getSubject();
     }
 
     public boolean validateJwtToken(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(authToken);
+            parseClaims(authToken);
             return true;
-        } catch (JwtException e) {
-            System.err.println("Invalid JWT token: " + e.getMessage());
+        } catch (JwtException | IllegalArgumentException e) {
+            log.warn("Invalid JWT token: {}", e.getMessage());
         }
         return false;
     }
@@ -0,0 +1,78 @@
+package poc.security;
+
+import org.springframework.context.event.EventListener;
+import poc.service.DonneesModifiees;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Jetons deja verifies : empreinte SHA-256 du jeton -> principal resolu, jusqu'a la plus proche
+// de l'expiration du jeton et du TTL. Taille bornee : une fois pleine, les entrees expirees sont
+// purgees et, s'il n'y a toujours pas de place, le jeton n'est simplement pas mis en cache.
+public class VerifiedTokenCache {
+
+    private final Map<String, Entree> entrees = new ConcurrentHashMap<>();
+    private final int taille;
+    private final long ttlMs;
+
+    public VerifiedTokenCache(int taille, long ttlMs) {
+        this.taille = taille;
+        this.ttlMs = ttlMs;
+    }
+
+    public JwtPrincipal get(String empreinte, long maintenant) {
+        Entree e = entrees.get(empreinte);
+        if (e == null) return null;
+        if (e.expiration <= maintenant) {
+            entrees.remove(empreinte, e);
+            return null;
+        }
+        return e.principal;
+    }
+
+    public void put(String empreinte, JwtPrincipal principal, long expirationJeton, long maintenant) {
+        if (entrees.size() >= taille) {
+            entrees.values().removeIf(e -> e.expiration <= maintenant);
+            if (entrees.size() >= taille) return;
+        }
+        entrees.put(empreinte, new Entree(principal, Math.min(expirationJeton, maintenant + ttlMs)));
+    }
+
+    // Un principal porte l'eleve et le lycee resolus a la connexion
+    @EventListener
+    public void donneesModifiees(DonneesModifiees evenement) {
+        if (evenement.touche(DonneesModifiees.Perimetre.LYCEES, DonneesModifiees.Perimetre.ELEVES)) vider();
+    }
+
+    public void vider() {
+        entrees.clear();
+    }
+
+    public int size() {
+        return entrees.size();
+    }
+
+    // Le jeton lui-meme n'est pas conserve
+    public static String empreinte(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entree {
+        final JwtPrincipal principal;
+        final long expiration;
+
+        Entree(JwtPrincipal principal, long expiration) {
+            this.principal = principal;
+            this.expiration = expiration;
+        }
+    }
+}
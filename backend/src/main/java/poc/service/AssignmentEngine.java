@@ -0,0 +1,73 @@
+package poc.service;
+
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+// Algorithme d'affectation par tours de priorite, entierement en memoire.
+// Aucune dependance a Spring ni a la base : tout passe par le snapshot.
+public final class AssignmentEngine {
+
+    private AssignmentEngine() {
+    }
+
+    // Ordre de passage tire au sort (Fisher-Yates sur les indices d'eleves)
+    public static int[] tirage(int nbEtudiants, Random random) {
+        int[] ordre = new int[nbEtudiants];
+        for (int i = 0; i < nbEtudiants; i++) ordre[i] = i;
+        for (int i = nbEtudiants - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = ordre[i];
+            ordre[i] = ordre[j];
+            ordre[j] = tmp;
+        }
+        return ordre;
+    }
+
+    // Tirage rejouable, partage par les modes voeux et loterie et par la simulation : une graine par
+    // demi-journee (graines), eleves dans l'ordre du snapshot. Les demi-journees ne dependent pas
+    // les unes des autres : calculees ici en sequence, ou en parallele par AssignmentService.
+    public static AssignmentResult affecter(AssignmentSnapshot snapshot, List<int[]> partitions, long graine) {
+        long[] graines = graines(graine, partitions.size());
+        AssignmentResult result = new AssignmentResult();
+        for (int i = 0; i < graines.length; i++) result.ajouterTout(affecter(snapshot, partitions.get(i), graines[i]));
+        return result;
+    }
+
+    // Graines des demi-journees, derivees de la graine du calcul dans l'ordre des partitions
+    public static long[] graines(long graine, int nbPartitions) {
+        SplittableRandom maitre = new SplittableRandom(graine);
+        long[] graines = new long[nbPartitions];
+        for (int i = 0; i < nbPartitions; i++) graines[i] = maitre.split().nextLong();
+        return graines;
+    }
+
+    // Tirage d'une demi-journee avec sa propre graine
+    public static AssignmentResult affecter(AssignmentSnapshot snapshot, int[] partition, long graine) {
+        int[] tirage = tirage(partition.length, new Random(graine));
+        int[] ordre = new int[partition.length];
+        for (int i = 0; i < ordre.length; i++) ordre[i] = partition[tirage[i]];
+        return affecter(snapshot, ordre);
+    }
+
+    // Tour 1 : voeu 1 de chaque eleve dans l'ordre du tirage, puis voeu 2, etc., dans la limite
+    // de NB_PAR_ELEVE activites par eleve ; une activite demandee deux fois n'est attribuee qu'une fois
+    public static AssignmentResult affecter(AssignmentSnapshot snapshot, int[] ordre) {
+        int[] restantes = snapshot.copieCapacites();
+        int[] places = new int[snapshot.nbEtudiants()];
+        AssignmentResult result = new AssignmentResult();
+
+        for (int priorite = 1; priorite <= AssignmentSnapshot.NB_VOEUX; priorite++) {
+            for (int e : ordre) {
+                int a = snapshot.voeu(e, priorite);
+                if (a >= 0 && restantes[a] > 0 && places[e] < AssignmentSnapshot.NB_PAR_ELEVE
+                        && !snapshot.dejaDemandee(e, priorite)) {
+                    restantes[a]--;
+                    places[e]++;
+                    result.ajouter(e, a, priorite);
+                }
+            }
+        }
+        return result;
+    }
+}
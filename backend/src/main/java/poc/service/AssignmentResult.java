@@ -0,0 +1,67 @@
+package poc.service;
+
+import java.util.Arrays;
+
+// Liste des placements calcules en memoire (indices du snapshot), avant persistance.
+public final class AssignmentResult {
+
+    private int[] etudiants = new int[1024];
+    private int[] activites = new int[1024];
+    private int[] rangs = new int[1024];
+    // Renseignes uniquement par le planning horaire (-1 / null sinon)
+    private int[] slots = new int[1024];
+    private String[] salles = new String[1024];
+    private int taille;
+    // parRang[r] = nombre de placements obtenus sur le voeu r (1 a 5)
+    private final int[] parRang = new int[AssignmentSnapshot.NB_VOEUX + 1];
+    private int incomplets;
+
+    public void ajouter(int etudiant, int activite, int rang) {
+        ajouter(etudiant, activite, rang, -1, null);
+    }
+
+    public void ajouter(int etudiant, int activite, int rang, int slot, String salle) {
+        if (taille == etudiants.length) {
+            int nouvelle = taille * 2;
+            etudiants = Arrays.copyOf(etudiants, nouvelle);
+            activites = Arrays.copyOf(activites, nouvelle);
+            rangs = Arrays.copyOf(rangs, nouvelle);
+            slots = Arrays.copyOf(slots, nouvelle);
+            salles = Arrays.copyOf(salles, nouvelle);
+        }
+        etudiants[taille] = etudiant;
+        activites[taille] = activite;
+        rangs[taille] = rang;
+        slots[taille] = slot;
+        salles[taille] = salle;
+        taille++;
+        parRang[rang]++;
+    }
+
+    // Concatene les placements d'une autre partition (indices du meme snapshot)
+    public void ajouterTout(AssignmentResult autre) {
+        for (int i = 0; i < autre.taille; i++) {
+            ajouter(autre.etudiants[i], autre.activites[i], autre.rangs[i], autre.slots[i], autre.salles[i]);
+        }
+        incomplets += autre.incomplets;
+    }
+
+    // Eleve qui n'a pas pu recevoir un planning complet
+    public void ajouterIncomplet() { incomplets++; }
+
+    public int taille() { return taille; }
+
+    public int etudiant(int i) { return etudiants[i]; }
+
+    public int activite(int i) { return activites[i]; }
+
+    public int rang(int i) { return rangs[i]; }
+
+    public int slot(int i) { return slots[i]; }
+
+    public String salle(int i) { return salles[i]; }
+
+    public int nbParRang(int rang) { return parRang[rang]; }
+
+    public int incomplets() { return incomplets; }
+}
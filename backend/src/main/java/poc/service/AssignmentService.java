@@ -1,82 +1,254 @@
 package poc.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import poc.model.Activite;
 import poc.model.Affectation;
-import poc.model.Etudiant;
-import poc.model.Voeu;
-import poc.repository.ActiviteRepository;
+import poc.model.TypeActivite;
 import poc.repository.AffectationRepository;
-import poc.repository.EtudiantRepository;
-import poc.repository.VoeuRepository;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
 
 @Service
 public class AssignmentService {
 
-    @Autowired private EtudiantRepository etudiantRepository;
-    @Autowired private ActiviteRepository activiteRepository;
-    @Autowired private VoeuRepository voeuRepository;
-    @Autowired private AffectationRepository affectationRepository;
+    private static final int MAX_TIRAGES = 1024;
 
+    @Autowired private AffectationRepository affectationRepository;
+    @Autowired private JdbcTemplate jdbc;
+    @Autowired private ExecutorService assignmentExecutor;
+    @Autowired private ForkJoinPool lotteryPool;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private IncrementalAssignmentService incrementalAssignmentService;
+    @Autowired private PipelineMetrics pipelineMetrics;
+
+    // Marge sur la capacite des salles pour compenser les absences (CAPACITY_BUFFER)
+    @Value("${fesup.planning.marge-capacite:1.20}")
+    private double margeCapacite;
+
+    @Value("${fesup.affectation.tirages:32}")
+    private int tiragesParDefaut;
+
+    // Tirage au sort d'une graine, enregistree avec le calcul : la simulation et la loterie
+    // (?mode=loterie&graine=...) rejouent exactement ce tirage. Chaque demi-journee est tiree en
+    // parallele avec sa graine derivee (AssignmentEngine.graines), meme resultat qu'en sequence.
     @Transactional
     public String runAssignment() {
-        affectationRepository.deleteAll();
-
-        List<Etudiant> etudiants = etudiantRepository.findAll();
-        List<Activite> activites = activiteRepository.findAll();
-
-        Map<Long, Activite> activiteMap = activites.stream()
-                .collect(Collectors.toMap(Activite::getId, a -> a));
-
-        Map<Long, Integer> currentCapacity = new HashMap<>();
-        activites.forEach(a -> currentCapacity.put(a.getId(), 0));
+        AssignmentSnapshot snapshot = preparer();
+        long graine = new SplittableRandom().nextLong();
+        List<int[]> partitions = new ArrayList<>(parDemiJournee(snapshot).values());
+        long[] graines = AssignmentEngine.graines(graine, partitions.size());
+        AssignmentResult result = resoudre(partitions,
+                i -> AssignmentEngine.affecter(snapshot, partitions.get(i), graines[i]));
+
+        persister(snapshot, result);
+        enregistrerCalcul("voeux", graine, null, null);
+        pipelineMetrics.placements("voeux", result);
+        return "Affectation terminée.";
+    }
 
-        Map<Long, List<Voeu>> voeuxByEtudiant = voeuRepository.findAll().stream()
-                .collect(Collectors.groupingBy(v -> v.getEtudiant().getId()));
+    // Affectation sans tirage au sort : flot de cout minimum par demi-journee (FlowAssignmentEngine),
+    // au plus 4 activites par eleve, penalites OBJECTIVE_WEIGHTS sur les voeux 3, 4 et 5
+    @Transactional
+    public String runOptimal() {
+        AssignmentSnapshot snapshot = preparer();
+        List<int[]> partitions = new ArrayList<>(parDemiJournee(snapshot).values());
+        AssignmentResult result = resoudre(partitions, i -> FlowAssignmentEngine.affecter(snapshot, partitions.get(i)));
+
+        persister(snapshot, result);
+        enregistrerCalcul("optimal", null, null, null);
+        pipelineMetrics.placements("optimal", result);
+        int penalite = 0;
+        for (int rang = 1; rang <= AssignmentSnapshot.NB_VOEUX; rang++) penalite += result.nbParRang(rang) * ScheduleEngine.POIDS[rang];
+        return "Affectation optimale terminée : " + result.taille() + " placements, pénalité " + penalite + ".";
+    }
 
-        Collections.shuffle(etudiants);
+    // N tirages au sort en parallele sur le meme snapshot, seul le mieux note est enregistre, avec sa
+    // graine (table calcul_affectation). Une graine donnee rejoue ce tirage a l'identique.
+    @Transactional
+    public Map<String, Object> runLoterie(Integer nbTirages, Long graine) {
+        long debut = System.nanoTime();
+        AssignmentSnapshot snapshot = preparer();
+        List<int[]> partitions = new ArrayList<>(parDemiJournee(snapshot).values());
+
+        long[] graines;
+        if (graine != null) {
+            graines = new long[]{graine};
+        } else {
+            int n = Math.max(1, Math.min(nbTirages != null ? nbTirages : tiragesParDefaut, MAX_TIRAGES));
+            SplittableRandom generateur = new SplittableRandom();
+            graines = new long[n];
+            for (int i = 0; i < n; i++) graines[i] = generateur.nextLong();
+        }
 
-        for (int priority = 1; priority <= 5; priority++) {
-            for (Etudiant etudiant : etudiants) {
-                assignVoeu(etudiant, priority, voeuxByEtudiant, activiteMap, currentCapacity);
+        List<Callable<MultiSeedLottery.Tirage>> taches = new ArrayList<>();
+        for (long g : graines) taches.add(() -> MultiSeedLottery.tirer(snapshot, partitions, g));
+        MultiSeedLottery.Tirage meilleur = null;
+        try {
+            for (Future<MultiSeedLottery.Tirage> tache : lotteryPool.invokeAll(taches)) {
+                MultiSeedLottery.Tirage tirage = tache.get();
+                if (meilleur == null || tirage.score.compareTo(meilleur.score) < 0) meilleur = tirage;
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Loterie interrompue", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Echec d'un tirage : " + e.getCause().getMessage(), e.getCause());
         }
 
-        return "Affectation terminée.";
+        persister(snapshot, meilleur.result);
+        Map<String, Object> score = meilleur.score.toMap();
+        try {
+            enregistrerCalcul("loterie", meilleur.graine, graines.length, objectMapper.writeValueAsString(score));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        pipelineMetrics.placements("loterie", meilleur.result);
+
+        Map<String, Object> bilan = new LinkedHashMap<>();
+        // En chaine : une graine sur 64 bits ne tient pas dans un nombre JavaScript
+        bilan.put("graine", Long.toString(meilleur.graine));
+        bilan.put("tirages", graines.length);
+        bilan.put("placements", meilleur.result.taille());
+        bilan.put("score", score);
+        bilan.put("dureeMs", (System.nanoTime() - debut) / 1_000_000);
+        return bilan;
+    }
+
+    // Planning horaire complet : 4 (activite, slot) par eleve et une salle par session
+    @Transactional
+    public String runPlanning() {
+        AssignmentSnapshot snapshot = preparer();
+
+        List<String> nomsSalles = new ArrayList<>();
+        int[] capSalles = salles(snapshot, nomsSalles);
+        String[] noms = nomsSalles.toArray(new String[0]);
+
+        List<int[]> partitions = new ArrayList<>(parDemiJournee(snapshot).values());
+        AssignmentResult result = resoudre(partitions,
+                i -> ScheduleEngine.planifier(snapshot, partitions.get(i), noms, capSalles));
+
+        persister(snapshot, result);
+        enregistrerCalcul("planning", null, null, null);
+        pipelineMetrics.placements("planning", result);
+        return "Planning terminé : " + result.taille() + " placements, "
+                + result.incomplets() + " élève(s) sans planning complet.";
     }
 
     public List<Affectation> getAllAffectations() {
         return affectationRepository.findAll();
     }
 
-    private void assignVoeu(Etudiant etudiant, int priority,
-                            Map<Long, List<Voeu>> voeuxByEtudiant,
-                            Map<Long, Activite> activiteMap,
-                            Map<Long, Integer> currentCapacity) {
-
-        List<Voeu> studentVoeux = voeuxByEtudiant.getOrDefault(etudiant.getId(), Collections.emptyList());
-
-        studentVoeux.stream()
-                .filter(v -> v.getPriorite() == priority)
-                .findFirst()
-                .ifPresent(voeu -> {
-                    Activite activite = activiteMap.get(voeu.getActivite().getId());
-                    int capacity = (activite.getNbPlaces() != null) ? activite.getNbPlaces() : 999;
-                    int current = currentCapacity.getOrDefault(activite.getId(), 0);
-
-                    if (current < capacity) {
-                        Affectation affectation = new Affectation();
-                        affectation.setEtudiant(etudiant);
-                        affectation.setActivite(activite);
-                        affectation.setRangVoeu(priority);
-                        affectationRepository.save(affectation);
-                        currentCapacity.put(activite.getId(), current + 1);
+    private AssignmentSnapshot preparer() {
+        // Les lectures/ecritures suivantes passent par JDBC : on pousse d'abord le contexte JPA
+        affectationRepository.flush();
+        affectationRepository.deleteAllInBatch();
+        incrementalAssignmentService.oublierModifications();
+        long debut = System.nanoTime();
+        AssignmentSnapshot snapshot = chargerSnapshot();
+        pipelineMetrics.requete("affectation.lecture", System.nanoTime() - debut);
+        return snapshot;
+    }
+
+    AssignmentSnapshot chargerSnapshot() {
+        AssignmentSnapshot.Builder builder = new AssignmentSnapshot.Builder();
+        jdbc.query("SELECT id, demi_journee, creneau, lycee_id FROM etudiant ORDER BY id",
+                rs -> {
+                    builder.etudiant(rs.getLong(1), rs.getString(2), rs.getObject(3, Integer.class),
+                            rs.getObject(4, Long.class));
+                });
+        jdbc.query("SELECT id, nb_places, type, salle FROM activite ORDER BY id",
+                rs -> {
+                    String type = rs.getString(3);
+                    builder.activite(rs.getLong(1), rs.getObject(2, Integer.class),
+                            type != null ? TypeActivite.valueOf(type) : null, rs.getString(4));
+                });
+        jdbc.query("SELECT etudiant_id, activite_id, priorite FROM voeu ORDER BY id",
+                rs -> { builder.voeu(rs.getLong(1), rs.getLong(2), rs.getInt(3)); });
+        return builder.build();
+    }
+
+    // Mode (et graine) du calcul dont les affectations sont enregistrees ; la derniere ligne fait foi
+    private void enregistrerCalcul(String mode, Long graine, Integer nbTirages, String score) {
+        jdbc.update("INSERT INTO calcul_affectation (mode, graine, nb_tirages, score, calcule_le) VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)",
+                mode, graine, nbTirages, score);
+    }
+
+    // Salles distinctes des activites ; capacite = plus grande jauge annoncee, avec la marge
+    int[] salles(AssignmentSnapshot snapshot, List<String> noms) {
+        Map<String, Integer> capacites = new LinkedHashMap<>();
+        for (int a = 0; a < snapshot.nbActivites(); a++) {
+            String salle = snapshot.salle(a) != null ? snapshot.salle(a) : "Salle activite " + snapshot.activiteId(a);
+            capacites.merge(salle, snapshot.capacite(a), Math::max);
+        }
+        noms.addAll(capacites.keySet());
+        return capacites.values().stream().mapToInt(c -> (int) (c * margeCapacite)).toArray();
+    }
+
+    // Une tache par demi-journee ; solveur recoit l'indice de la partition, resultats dans l'ordre
+    private AssignmentResult resoudre(List<int[]> partitions, IntFunction<AssignmentResult> solveur) {
+        List<Future<AssignmentResult>> taches = new ArrayList<>();
+        for (int i = 0; i < partitions.size(); i++) {
+            int indice = i;
+            taches.add(assignmentExecutor.submit(() -> solveur.apply(indice)));
+        }
+        AssignmentResult result = new AssignmentResult();
+        try {
+            for (Future<AssignmentResult> tache : taches) result.ajouterTout(tache.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Affectation interrompue", e);
+        } catch (ExecutionException e) {
+            taches.forEach(t -> t.cancel(true));
+            throw new RuntimeException("Echec du calcul d'une demi-journee : " + e.getCause().getMessage(), e.getCause());
+        }
+        return result;
+    }
+
+    static Map<String, int[]> parDemiJournee(AssignmentSnapshot snapshot) {
+        Map<String, List<Integer>> groupes = new TreeMap<>();
+        for (int e = 0; e < snapshot.nbEtudiants(); e++) {
+            String dj = snapshot.demiJournee(e) != null ? snapshot.demiJournee(e) : "";
+            groupes.computeIfAbsent(dj, k -> new ArrayList<>()).add(e);
+        }
+        Map<String, int[]> partitions = new TreeMap<>();
+        groupes.forEach((dj, etudiants) -> partitions.put(dj, etudiants.stream().mapToInt(Integer::intValue).toArray()));
+        return partitions;
+    }
+
+    private void persister(AssignmentSnapshot snapshot, AssignmentResult result) {
+        if (result.taille() == 0) return;
+        long debut = System.nanoTime();
+        jdbc.batchUpdate("INSERT INTO affectation (etudiant_id, activite_id, rang_voeu, slot, salle) VALUES (?, ?, ?, ?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setLong(1, snapshot.etudiantId(result.etudiant(i)));
+                        ps.setLong(2, snapshot.activiteId(result.activite(i)));
+                        ps.setInt(3, result.rang(i));
+                        if (result.slot(i) >= 0) ps.setInt(4, result.slot(i)); else ps.setNull(4, Types.INTEGER);
+                        ps.setString(5, result.salle(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return result.taille();
                     }
                 });
+        pipelineMetrics.requete("affectation.ecriture", System.nanoTime() - debut);
     }
 }
@@ -0,0 +1,199 @@
+package poc.service;
+
+import poc.model.TypeActivite;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Representation compacte (tableaux primitifs) des eleves, voeux et capacites.
+// Les eleves et activites sont designes par leur indice dans les tableaux,
+// les identifiants base ne servent qu'a la lecture et a la persistance.
+public final class AssignmentSnapshot {
+
+    public static final int NB_VOEUX = 5;
+    // Presentations suivies par eleve (N_PRESENTATIONS_PER_STUDENT) : plafond commun a tous les
+    // modes d'affectation, pour que leurs resultats restent comparables
+    public static final int NB_PAR_ELEVE = 4;
+    public static final int CAPACITE_PAR_DEFAUT = 999;
+
+    private final long[] etudiantIds;
+    private final String[] demiJournees;
+    // Creneau d'arrivee (0 a 7, cf. room_attribution/config.py), -1 si inconnu
+    private final int[] creneaux;
+    // Lycee d'origine, -1 si inconnu (equite entre lycees du mode loterie)
+    private final long[] lyceeIds;
+    private final long[] activiteIds;
+    private final int[] capacites;
+    private final TypeActivite[] types;
+    private final String[] salles;
+    // voeux[e * NB_VOEUX + (priorite - 1)] = indice d'activite, ou -1
+    private final int[] voeux;
+
+    public AssignmentSnapshot(long[] etudiantIds, String[] demiJournees, int[] creneaux, long[] lyceeIds,
+                              long[] activiteIds, int[] capacites, TypeActivite[] types, String[] salles,
+                              int[] voeux) {
+        int n = etudiantIds.length, p = activiteIds.length;
+        if (demiJournees.length != n || creneaux.length != n || lyceeIds.length != n) {
+            throw new IllegalArgumentException("Une demi-journee, un creneau et un lycee par eleve attendus.");
+        }
+        if (capacites.length != p || types.length != p || salles.length != p) {
+            throw new IllegalArgumentException("Une capacite, un type et une salle par activite attendus.");
+        }
+        if (voeux.length != n * NB_VOEUX) {
+            throw new IllegalArgumentException("Tableau de voeux de taille incorrecte.");
+        }
+        this.etudiantIds = etudiantIds;
+        this.demiJournees = demiJournees;
+        this.creneaux = creneaux;
+        this.lyceeIds = lyceeIds;
+        this.activiteIds = activiteIds;
+        this.capacites = capacites;
+        this.types = types;
+        this.salles = salles;
+        this.voeux = voeux;
+    }
+
+    public int nbEtudiants() { return etudiantIds.length; }
+
+    public int nbActivites() { return activiteIds.length; }
+
+    public long etudiantId(int e) { return etudiantIds[e]; }
+
+    public String demiJournee(int e) { return demiJournees[e]; }
+
+    public int creneau(int e) { return creneaux[e]; }
+
+    public long lyceeId(int e) { return lyceeIds[e]; }
+
+    public long activiteId(int a) { return activiteIds[a]; }
+
+    public int capacite(int a) { return capacites[a]; }
+
+    public TypeActivite type(int a) { return types[a]; }
+
+    public String salle(int a) { return salles[a]; }
+
+    public int voeu(int e, int priorite) { return voeux[e * NB_VOEUX + priorite - 1]; }
+
+    // Activite du voeu deja demandee a un meilleur rang : un doublon n'est compte qu'une fois
+    public boolean dejaDemandee(int e, int priorite) {
+        int a = voeu(e, priorite);
+        for (int r = 1; r < priorite; r++) {
+            if (voeu(e, r) == a) return true;
+        }
+        return false;
+    }
+
+    // Copie des capacites, a utiliser comme compteurs de places restantes
+    public int[] copieCapacites() { return capacites.clone(); }
+
+    // Meme snapshot avec d'autres capacites (simulations) ; les autres tableaux sont partages
+    public AssignmentSnapshot avecCapacites(int[] nouvelles) {
+        return new AssignmentSnapshot(etudiantIds, demiJournees, creneaux, lyceeIds, activiteIds, nouvelles, types,
+                salles, voeux);
+    }
+
+    // Construction incrementale a partir des lignes lues en base
+    public static final class Builder {
+        private final Map<Long, Integer> etudiantIndex = new HashMap<>();
+        private final Map<Long, Integer> activiteIndex = new HashMap<>();
+        private long[] etudiantIds = new long[256];
+        private String[] demiJournees = new String[256];
+        private int[] creneaux = new int[256];
+        private long[] lyceeIds = new long[256];
+        private long[] activiteIds = new long[32];
+        private int[] capacites = new int[32];
+        private TypeActivite[] types = new TypeActivite[32];
+        private String[] salles = new String[32];
+        private int[] voeux = aucunVoeu(256 * NB_VOEUX);
+        private int nbEtudiants;
+        private int nbActivites;
+
+        public Builder etudiant(long id) {
+            return etudiant(id, null, null);
+        }
+
+        public Builder etudiant(long id, String demiJournee, Integer creneau) {
+            return etudiant(id, demiJournee, creneau, null);
+        }
+
+        public Builder etudiant(long id, String demiJournee, Integer creneau, Long lyceeId) {
+            int e = indexEtudiant(id);
+            demiJournees[e] = demiJournee;
+            creneaux[e] = creneau != null ? creneau : -1;
+            lyceeIds[e] = lyceeId != null ? lyceeId : -1;
+            return this;
+        }
+
+        public Builder activite(long id, Integer nbPlaces) {
+            return activite(id, nbPlaces, null, null);
+        }
+
+        public Builder activite(long id, Integer nbPlaces, TypeActivite type, String salle) {
+            if (activiteIndex.containsKey(id)) return this;
+            if (nbActivites == activiteIds.length) {
+                int taille = nbActivites * 2;
+                activiteIds = Arrays.copyOf(activiteIds, taille);
+                capacites = Arrays.copyOf(capacites, taille);
+                types = Arrays.copyOf(types, taille);
+                salles = Arrays.copyOf(salles, taille);
+            }
+            activiteIds[nbActivites] = id;
+            capacites[nbActivites] = nbPlaces != null ? nbPlaces : CAPACITE_PAR_DEFAUT;
+            types[nbActivites] = type;
+            salles[nbActivites] = salle;
+            activiteIndex.put(id, nbActivites++);
+            return this;
+        }
+
+        // Les voeux doivent etre ajoutes apres les activites qu'ils referencent
+        public Builder voeu(long etudiantId, long activiteId, int priorite) {
+            Integer a = activiteIndex.get(activiteId);
+            if (a == null || priorite < 1 || priorite > NB_VOEUX) return this;
+            int slot = indexEtudiant(etudiantId) * NB_VOEUX + priorite - 1;
+            // Comme l'ancien findFirst : le premier voeu lu pour une priorite l'emporte
+            if (voeux[slot] < 0) voeux[slot] = a;
+            return this;
+        }
+
+        public AssignmentSnapshot build() {
+            return new AssignmentSnapshot(
+                    Arrays.copyOf(etudiantIds, nbEtudiants),
+                    Arrays.copyOf(demiJournees, nbEtudiants),
+                    Arrays.copyOf(creneaux, nbEtudiants),
+                    Arrays.copyOf(lyceeIds, nbEtudiants),
+                    Arrays.copyOf(activiteIds, nbActivites),
+                    Arrays.copyOf(capacites, nbActivites),
+                    Arrays.copyOf(types, nbActivites),
+                    Arrays.copyOf(salles, nbActivites),
+                    Arrays.copyOf(voeux, nbEtudiants * NB_VOEUX));
+        }
+
+        private int indexEtudiant(long id) {
+            Integer idx = etudiantIndex.get(id);
+            if (idx != null) return idx;
+            if (nbEtudiants == etudiantIds.length) {
+                int taille = nbEtudiants * 2;
+                etudiantIds = Arrays.copyOf(etudiantIds, taille);
+                demiJournees = Arrays.copyOf(demiJournees, taille);
+                creneaux = Arrays.copyOf(creneaux, taille);
+                lyceeIds = Arrays.copyOf(lyceeIds, taille);
+                int[] agrandi = aucunVoeu(taille * NB_VOEUX);
+                System.arraycopy(voeux, 0, agrandi, 0, voeux.length);
+                voeux = agrandi;
+            }
+            etudiantIds[nbEtudiants] = id;
+            creneaux[nbEtudiants] = -1;
+            lyceeIds[nbEtudiants] = -1;
+            etudiantIndex.put(id, nbEtudiants);
+            return nbEtudiants++;
+        }
+
+        private static int[] aucunVoeu(int taille) {
+            int[] t = new int[taille];
+            Arrays.fill(t, -1);
+            return t;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package poc.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import poc.dto.ImportReport;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Ecriture en masse des eleves importes : matricules, INE et lycees existants sont charges une fois
+// en memoire, puis les lignes partent par lots JDBC (MERGE ... KEY sur le matricule). Les fichiers
+// sans matricule (voeux) passent par ajouterParIne : l'INE retrouve le matricule de la ligne existante.
+@Service
+public class BulkImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkImportService.class);
+
+    // Types d'import, seule etiquette des metriques fesup.import.* (le nom du fichier reste dans le rapport)
+    public static final String ELEVES = "eleves";
+    public static final String VOEUX = "voeux";
+    public static final String INPUTS = "inputs";
+
+    private static final String MERGE_ETUDIANT =
+            "MERGE INTO etudiant (matricule_csv, nom, prenom, lycee_id, classe, serie_bac, demi_journee, ine, creneau) "
+                    + "KEY (matricule_csv) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired private JdbcTemplate jdbc;
+    @Autowired private PipelineMetrics pipelineMetrics;
+
+    @Value("${fesup.import.batch-size:500}")
+    private int tailleLot;
+
+    // miseAJour = false : les matricules deja connus sont ignores au lieu d'etre mis a jour
+    public Lot nouveauLot(String type, String fichier, boolean miseAJour) {
+        return new Lot(type, fichier, miseAJour);
+    }
+
+    public final class Lot {
+        private final String type;
+        private final ImportReport report;
+        private final boolean miseAJour;
+        private final long debut = System.nanoTime();
+        // matricule -> {demi-journee, ine, creneau, classe, serie} connus (conserves si la ligne
+        // importee ne les donne pas)
+        private final Map<String, Object[]> existants = new HashMap<>();
+        // ine -> matricule, pour les fichiers qui n'identifient les eleves que par leur INE
+        private final Map<String, String> parIne = new HashMap<>();
+        private final Map<String, Long> lycees = new HashMap<>();
+        private final List<Object[]> tampon = new ArrayList<>();
+
+        private Lot(String type, String fichier, boolean miseAJour) {
+            this.type = type;
+            this.report = new ImportReport(fichier);
+            this.miseAJour = miseAJour;
+            jdbc.query("SELECT matricule_csv, demi_journee, ine, creneau, classe, serie_bac FROM etudiant",
+                    rs -> {
+                        existants.put(rs.getString(1), new Object[]{rs.getString(2), rs.getString(3),
+                                rs.getObject(4, Integer.class), rs.getString(5), rs.getString(6)});
+                        if (rs.getString(3) != null) parIne.put(rs.getString(3), rs.getString(1));
+                    });
+            jdbc.query("SELECT id, nom FROM lycee",
+                    rs -> { lycees.put(rs.getString(2).toUpperCase(), rs.getLong(1)); });
+        }
+
+        public void ajouter(String matricule, String nom, String prenom, String nomLycee,
+                            String classe, String serie, String demiJournee) {
+            ajouter(matricule, nom, prenom, nomLycee, classe, serie, demiJournee, null, null);
+        }
+
+        // Eleve identifie par son INE : met a jour la ligne qui porte deja cet INE (eleve saisi ou
+        // importe avec un autre matricule), sinon insere l'eleve avec l'INE pour matricule
+        public void ajouterParIne(String ine, String nom, String prenom, String nomLycee,
+                                  String classe, String demiJournee, Integer creneau) {
+            String matricule = parIne.getOrDefault(ine, ine);
+            ajouter(matricule, nom, prenom, nomLycee, classe, null, demiJournee, ine, creneau);
+        }
+
+        public void ajouter(String matricule, String nom, String prenom, String nomLycee,
+                            String classe, String serie, String demiJournee, String ine, Integer creneau) {
+            if (matricule == null || matricule.isEmpty()) {
+                ignorer();
+                return;
+            }
+            boolean existe = existants.containsKey(matricule);
+            if (existe && !miseAJour) {
+                ignorer();
+                return;
+            }
+            Object[] connu = existe ? existants.get(matricule) : new Object[5];
+            if (demiJournee == null || demiJournee.isEmpty()) demiJournee = (String) connu[0];
+            if (ine == null || ine.isEmpty()) ine = (String) connu[1];
+            if (creneau == null) creneau = (Integer) connu[2];
+            if (classe == null || classe.isEmpty()) classe = (String) connu[3];
+            if (serie == null || serie.isEmpty()) serie = (String) connu[4];
+
+            tampon.add(new Object[]{matricule, nom, prenom, lycee(nomLycee), classe, serie, demiJournee, ine, creneau});
+            existants.put(matricule, new Object[]{demiJournee, ine, creneau, classe, serie});
+            if (ine != null) parIne.put(ine, matricule);
+            if (existe) report.setMisAJour(report.getMisAJour() + 1);
+            else report.setInseres(report.getInseres() + 1);
+
+            if (tampon.size() >= tailleLot) vider();
+        }
+
+        public void ignorer() {
+            report.setIgnores(report.getIgnores() + 1);
+        }
+
+        public void rejeter(String categorie, String motif) {
+            report.rejeter(categorie, motif);
+        }
+
+        public ImportReport terminer() {
+            vider();
+            report.setDureeMs((System.nanoTime() - debut) / 1_000_000);
+            pipelineMetrics.importTermine(type, report);
+            log.info("Import {} : {}", type, report);
+            return report;
+        }
+
+        private void vider() {
+            if (tampon.isEmpty()) return;
+            jdbc.batchUpdate(MERGE_ETUDIANT, tampon);
+            tampon.clear();
+        }
+
+        private Long lycee(String nom) {
+            if (nom == null || nom.isEmpty()) return null;
+            return lycees.computeIfAbsent(nom.toUpperCase(), k -> {
+                KeyHolder cle = new GeneratedKeyHolder();
+                jdbc.update(con -> {
+                    PreparedStatement ps = con.prepareStatement("INSERT INTO lycee (nom) VALUES (?)", new String[]{"id"});
+                    ps.setString(1, nom);
+                    return ps;
+                }, cle);
+                return cle.getKey().longValue();
+            });
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package poc.service;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// Publie apres une operation qui modifie des tables en masse (imports, calculs, restauration,
+// suppressions admin). Chaque cache ecoute l'evenement et s'invalide selon le perimetre touche,
+// au lieu de listes d'invalidation recopiees a chaque appelant.
+public class DonneesModifiees extends ApplicationEvent {
+
+    public enum Perimetre { LYCEES, ACTIVITES, ELEVES, VOEUX, AFFECTATIONS }
+
+    private final Set<Perimetre> perimetres;
+
+    public DonneesModifiees(Object source, Perimetre premier, Perimetre... autres) {
+        super(source);
+        this.perimetres = EnumSet.of(premier, autres);
+    }
+
+    // Tout l'etat a pu changer (restauration, initialisation)
+    public static DonneesModifiees tout(Object source) {
+        return new DonneesModifiees(source, Perimetre.LYCEES, Perimetre.values());
+    }
+
+    public boolean touche(Perimetre... liste) {
+        for (Perimetre p : liste) {
+            if (perimetres.contains(p)) return true;
+        }
+        return false;
+    }
+
+    public boolean complet() {
+        return perimetres.size() == Perimetre.values().length;
+    }
+
+    public Set<Perimetre> getPerimetres() {
+        return perimetres;
+    }
+}
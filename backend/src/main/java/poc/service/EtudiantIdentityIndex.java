@@ -0,0 +1,151 @@
+package poc.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Index des identifiants de connexion eleve : matricule et INE -> id, dans une table
+// a adressage ouvert (sondage lineaire, tableaux paralleles). La connexion resout l'identifiant
+// en une sonde memoire et rejette les inconnus sans requete. Charge au demarrage, reconstruit
+// apres les imports et suppressions d'eleves (DonneesModifiees).
+@Service
+public class EtudiantIdentityIndex {
+
+    @Autowired private JdbcTemplate jdbc;
+    @Autowired private PipelineMetrics pipelineMetrics;
+
+    private volatile Table table;
+    private long generation;
+    // Un seul rechargement a la fois : apres une invalidation, les connexions concurrentes
+    // attendent la table en construction au lieu de relire chacune les eleves
+    private final Object chargement = new Object();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void charger() {
+        table();
+    }
+
+    @EventListener
+    public void donneesModifiees(DonneesModifiees evenement) {
+        if (evenement.touche(DonneesModifiees.Perimetre.LYCEES, DonneesModifiees.Perimetre.ELEVES)) invalider();
+    }
+
+    public synchronized void invalider() {
+        generation++;
+        table = null;
+    }
+
+    // id de l'eleve, ou -1 si l'identifiant n'est ni un matricule ni un INE connu. Comparaison
+    // exacte, comme les requetes findByMatriculeCsv / findByIne qu'elle remplace
+    public long chercher(String identifiant) {
+        if (identifiant == null || identifiant.isEmpty()) return -1;
+        return table().chercher(identifiant);
+    }
+
+    private Table table() {
+        Table t = table;
+        if (t != null) return t;
+        synchronized (chargement) {
+            long g;
+            synchronized (this) {
+                if (table != null) return table;
+                g = generation;
+            }
+            long debut = System.nanoTime();
+            t = construire();
+            pipelineMetrics.requete("identifiants", System.nanoTime() - debut);
+            // Invalidee pendant la construction : la table n'est pas publiee
+            synchronized (this) {
+                if (generation == g && table == null) table = t;
+            }
+            return t;
+        }
+    }
+
+    private Table construire() {
+        // Matricules d'abord : comme l'ancienne connexion (findByMatriculeCsv puis findByIne),
+        // un matricule l'emporte sur l'INE identique d'un autre eleve
+        Table.Builder builder = new Table.Builder();
+        List<Object[]> ines = new ArrayList<>();
+        jdbc.query("SELECT id, matricule_csv, ine FROM etudiant", rs -> {
+            long id = rs.getLong(1);
+            String matricule = rs.getString(2), ine = rs.getString(3);
+            if (matricule != null) builder.ajouter(matricule, id);
+            if (ine != null) ines.add(new Object[]{ine, id});
+        });
+        for (Object[] ine : ines) builder.ajouter((String) ine[0], (Long) ine[1]);
+        return builder.build();
+    }
+
+    // Table figee : capacite puissance de 2, facteur de charge <= 0.5
+    static final class Table {
+        private final String[] cles;
+        private final long[] ids;
+        private final int masque;
+
+        private Table(String[] cles, long[] ids) {
+            this.cles = cles;
+            this.ids = ids;
+            this.masque = cles.length - 1;
+        }
+
+        long chercher(String cle) {
+            for (int i = melanger(cle.hashCode()) & masque; ; i = (i + 1) & masque) {
+                String c = cles[i];
+                if (c == null) return -1;
+                if (c.equals(cle)) return ids[i];
+            }
+        }
+
+        int capacite() {
+            return cles.length;
+        }
+
+        private static int melanger(int h) {
+            h *= 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        static final class Builder {
+            private String[] cles = new String[1024];
+            private long[] ids = new long[1024];
+            private int taille;
+
+            // Une cle deja presente garde son premier id
+            Builder ajouter(String cle, long id) {
+                if (cle.isEmpty()) return this;
+                if (2 * (taille + 1) > cles.length) agrandir();
+                int masque = cles.length - 1;
+                for (int i = melanger(cle.hashCode()) & masque; ; i = (i + 1) & masque) {
+                    if (cles[i] == null) {
+                        cles[i] = cle;
+                        ids[i] = id;
+                        taille++;
+                        return this;
+                    }
+                    if (cles[i].equals(cle)) return this;
+                }
+            }
+
+            Table build() {
+                return new Table(cles, ids);
+            }
+
+            private void agrandir() {
+                String[] anciennes = cles;
+                long[] anciensIds = ids;
+                cles = new String[anciennes.length * 2];
+                ids = new long[anciennes.length * 2];
+                taille = 0;
+                for (int i = 0; i < anciennes.length; i++) {
+                    if (anciennes[i] != null) ajouter(anciennes[i], anciensIds[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package poc.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Stream;
+
+// Instantanes de tout l'etat de l'evenement (lycees, eleves, activites, voeux, affectations) dans
+// un fichier binaire compact (SnapshotFile), et restauration en une transaction. Permet un retour
+// arriere rapide avant une operation risquee (runAssignment efface toutes les affectations).
+// Les viewers et admins ne sont pas concernes : les lycees encore rattaches a un viewer sont gardes.
+@Service
+public class EventSnapshotService {
+
+    private static final String EXTENSION = ".fsnap";
+    private static final DateTimeFormatter HORODATAGE = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    // Ordre d'insertion (cles etrangeres) ; types 'N' nombre, 'S' chaine
+    private static final String[][] TABLES = {
+            {"lycee", "id:N", "nom:S"},
+            {"activite", "id:N", "titre:S", "type:S", "nb_places:N", "salle:S"},
+            {"etudiant", "id:N", "matricule_csv:S", "nom:S", "prenom:S", "serie_bac:S", "lycee_id:N", "classe:S",
+                    "demi_journee:S", "ine:S", "creneau:N"},
+            {"voeu", "id:N", "etudiant_id:N", "activite_id:N", "priorite:N"},
+            {"affectation", "id:N", "etudiant_id:N", "activite_id:N", "rang_voeu:N", "slot:N", "salle:S"}
+    };
+
+    @Autowired private JdbcTemplate jdbc;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @Value("${fesup.snapshot.dossier:data/snapshots}")
+    private String dossier;
+
+    @Value("${fesup.import.batch-size:500}")
+    private int tailleLot;
+
+    public Map<String, Object> sauvegarder() throws IOException {
+        long debut = System.nanoTime();
+        TransactionTemplate lecture = new TransactionTemplate(transactionManager);
+        lecture.setReadOnly(true);
+        lecture.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        List<SnapshotFile.Table> tables = lecture.execute(s -> {
+            List<SnapshotFile.Table> lues = new ArrayList<>();
+            for (String[] def : TABLES) lues.add(lireTable(def));
+            return lues;
+        });
+
+        Path rep = Paths.get(dossier);
+        Files.createDirectories(rep);
+        String nom = "evenement-" + LocalDateTime.now().format(HORODATAGE) + EXTENSION;
+        Path tmp = rep.resolve(nom + ".tmp");
+        SnapshotFile.ecrire(tmp, System.currentTimeMillis(), tables);
+        // Le fichier n'apparait sous son nom qu'une fois complet
+        Files.move(tmp, rep.resolve(nom), StandardCopyOption.ATOMIC_MOVE);
+        return bilan(nom, Files.size(rep.resolve(nom)), tables, debut);
+    }
+
+    public Map<String, Object> restaurer(String nom) throws IOException {
+        long debut = System.nanoTime();
+        Path fichier = fichier(nom);
+        if (!Files.isRegularFile(fichier)) throw new IllegalArgumentException("Instantane introuvable : " + nom);
+        Map<String, SnapshotFile.Table> lues = new HashMap<>();
+        for (SnapshotFile.Table t : SnapshotFile.lire(fichier)) lues.put(t.nom, t);
+
+        List<SnapshotFile.Table> tables = new ArrayList<>();
+        for (String[] def : TABLES) {
+            SnapshotFile.Table t = lues.get(def[0]);
+            if (t == null || !Arrays.equals(t.colonnes, colonnes(def))) {
+                throw new IllegalArgumentException("Instantane incompatible (table " + def[0] + ")");
+            }
+            tables.add(t);
+        }
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(s -> {
+            for (int i = TABLES.length - 1; i > 0; i--) jdbc.update("DELETE FROM " + TABLES[i][0]);
+            jdbc.update("DELETE FROM lycee l WHERE NOT EXISTS (SELECT 1 FROM viewer v WHERE v.lycee_id = l.id)");
+            // Le calcul qui a produit les affectations restaurees n'est pas connu
+            jdbc.update("DELETE FROM calcul_affectation");
+            for (SnapshotFile.Table t : tables) inserer(t);
+        });
+
+        // Hors transaction : un ALTER TABLE valide la transaction en cours sous H2
+        for (String[] def : TABLES) {
+            Long max = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + def[0], Long.class);
+            jdbc.execute("ALTER TABLE " + def[0] + " ALTER COLUMN id RESTART WITH " + (max + 1));
+        }
+        return bilan(nom, Files.size(fichier), tables, debut);
+    }
+
+    public List<Map<String, Object>> lister() throws IOException {
+        Path rep = Paths.get(dossier);
+        if (!Files.isDirectory(rep)) return List.of();
+        List<Map<String, Object>> instantanes = new ArrayList<>();
+        try (Stream<Path> fichiers = Files.list(rep)) {
+            for (Path f : (Iterable<Path>) fichiers.sorted(Comparator.reverseOrder())::iterator) {
+                String nom = f.getFileName().toString();
+                if (!nom.endsWith(EXTENSION)) continue;
+                instantanes.add(Map.of("fichier", nom, "octets", Files.size(f),
+                        "date", Files.getLastModifiedTime(f).toString()));
+            }
+        }
+        return instantanes;
+    }
+
+    private SnapshotFile.Table lireTable(String[] def) {
+        String[] colonnes = colonnes(def);
+        char[] types = new char[colonnes.length];
+        for (int c = 0; c < colonnes.length; c++) types[c] = def[c + 1].charAt(def[c + 1].length() - 1);
+        List<Object[]> lignes = new ArrayList<>();
+        jdbc.query("SELECT " + String.join(", ", colonnes) + " FROM " + def[0] + " ORDER BY id", rs -> {
+            Object[] ligne = new Object[colonnes.length];
+            for (int c = 0; c < colonnes.length; c++) {
+                ligne[c] = types[c] == 'S' ? rs.getString(c + 1) : rs.getObject(c + 1, Long.class);
+            }
+            lignes.add(ligne);
+        });
+        return new SnapshotFile.Table(def[0], colonnes, types, lignes);
+    }
+
+    private void inserer(SnapshotFile.Table t) {
+        String marques = String.join(", ", Collections.nCopies(t.colonnes.length, "?"));
+        String sql = "lycee".equals(t.nom)
+                ? "MERGE INTO lycee (" + String.join(", ", t.colonnes) + ") KEY (id) VALUES (" + marques + ")"
+                : "INSERT INTO " + t.nom + " (" + String.join(", ", t.colonnes) + ") VALUES (" + marques + ")";
+        for (int i = 0; i < t.lignes.size(); i += tailleLot) {
+            jdbc.batchUpdate(sql, t.lignes.subList(i, Math.min(t.lignes.size(), i + tailleLot)));
+        }
+    }
+
+    private Path fichier(String nom) {
+        if (nom == null || !nom.matches("[A-Za-z0-9._-]+") || !nom.endsWith(EXTENSION)) {
+            throw new IllegalArgumentException("Nom d'instantane invalide");
+        }
+        return Paths.get(dossier).resolve(nom);
+    }
+
+    private static String[] colonnes(String[] def) {
+        String[] colonnes = new String[def.length - 1];
+        for (int c = 0; c < colonnes.length; c++) colonnes[c] = def[c + 1].substring(0, def[c + 1].indexOf(':'));
+        return colonnes;
+    }
+
+    private static Map<String, Object> bilan(String nom, long octets, List<SnapshotFile.Table> tables, long debut) {
+        Map<String, Object> bilan = new LinkedHashMap<>();
+        bilan.put("fichier", nom);
+        bilan.put("octets", octets);
+        for (SnapshotFile.Table t : tables) bilan.put(t.nom, t.lignes.size());
+        bilan.put("dureeMs", (System.nanoTime() - debut) / 1_000_000);
+        return bilan;
+    }
+}
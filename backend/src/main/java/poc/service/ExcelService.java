@@ -1,75 +1,81 @@
 package poc.service;
 
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import poc.model.Etudiant;
+import poc.dto.ImportReport;
 import poc.model.Lycee;
 import poc.model.Activite;
 import poc.model.TypeActivite;
-import poc.model.Voeu;
 import poc.repository.ActiviteRepository;
-import poc.repository.EtudiantRepository;
 import poc.repository.LyceeRepository;
 import poc.repository.ViewerRepository;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 @Service
 public class ExcelService {
 
-    public void importStudents(String folderPath, EtudiantRepository etudiantRepo, LyceeRepository lyceeRepo) {
-        DataFormatter fmt = new DataFormatter();
-        Map<String, Lycee> cache = buildLyceeCache(lyceeRepo);
+    private static final Logger log = LoggerFactory.getLogger(ExcelService.class);
+    private static final int LIGNES_EN_MEMOIRE = 200;
+
+    @Autowired private JdbcTemplate jdbc;
+    @Autowired private BulkImportService bulkImportService;
+
+    public List<ImportReport> importStudents(String folderPath) {
+        List<ImportReport> reports = new ArrayList<>();
 
         for (File file : getExcelFiles(folderPath)) {
-            try (FileInputStream fis = new FileInputStream(file);
-                 Workbook wb = WorkbookFactory.create(fis)) {
-
-                for (Row row : wb.getSheetAt(0)) {
-                    if (row.getRowNum() == 0) continue;
-
-                    String lycee = fmt.formatCellValue(row.getCell(0)).trim();
-                    String nom = fmt.formatCellValue(row.getCell(1)).trim();
-                    String prenom = fmt.formatCellValue(row.getCell(2)).trim();
-                    String matricule = fmt.formatCellValue(row.getCell(3)).trim();
-                    String classe = fmt.formatCellValue(row.getCell(4)).trim();
-
-                    if (matricule.isEmpty() || nom.isEmpty() || matricule.contains("@")) continue;
-                    if (etudiantRepo.findByMatriculeCsv(matricule).isPresent()) continue;
-
-                    Etudiant e = new Etudiant();
-                    e.setMatriculeCsv(matricule);
-                    e.setNom(nom);
-                    e.setPrenom(prenom);
-                    e.setClasse(classe);
-                    e.setLycee(getOrCreateLycee(lycee, cache, lyceeRepo));
-                    e.setSerieBac("Generale");
-                    e.setDemiJournee("DJ1");
-                    etudiantRepo.save(e);
+            // Les eleves deja connus ne sont pas modifies par l'import du dossier Inputs
+            BulkImportService.Lot lot = bulkImportService.nouveauLot(BulkImportService.INPUTS, file.getName(), false);
+            try (SheetRowReader rows = SheetRowReader.ouvrir(file)) {
+                if (rows.hasNext()) rows.next();
+
+                while (rows.hasNext()) {
+                    String[] row = rows.next();
+                    String lycee = SheetRowReader.cellule(row, 0);
+                    String nom = SheetRowReader.cellule(row, 1);
+                    String prenom = SheetRowReader.cellule(row, 2);
+                    String matricule = SheetRowReader.cellule(row, 3);
+                    String classe = SheetRowReader.cellule(row, 4);
+
+                    if (matricule.isEmpty() || nom.isEmpty() || matricule.contains("@")) {
+                        lot.ignorer();
+                        continue;
+                    }
+                    lot.ajouter(matricule, nom, prenom, lycee, classe, "Generale", "DJ1");
                 }
             } catch (Exception ex) {
-                System.err.println("Error importing " + file.getName() + ": " + ex.getMessage());
+                log.error("Error importing {}: {}", file.getName(), ex.getMessage());
             }
+            reports.add(lot.terminer());
         }
+        return reports;
     }
 
     public void importViewers(String folderPath, ViewerRepository viewerRepo, LyceeRepository lyceeRepo) {
-        DataFormatter fmt = new DataFormatter();
         Map<String, Lycee> cache = buildLyceeCache(lyceeRepo);
 
         for (File file : getExcelFiles(folderPath)) {
-            try (FileInputStream fis = new FileInputStream(file);
-                 Workbook wb = WorkbookFactory.create(fis)) {
+            try (SheetRowReader rows = SheetRowReader.ouvrir(file)) {
+                if (rows.hasNext()) rows.next();
 
-                for (Row row : wb.getSheetAt(0)) {
-                    if (row.getRowNum() == 0) continue;
-
-                    String lycee = fmt.formatCellValue(row.getCell(0)).trim();
-                    String nom = fmt.formatCellValue(row.getCell(1)).trim();
-                    String prenom = fmt.formatCellValue(row.getCell(2)).trim();
-                    String email = fmt.formatCellValue(row.getCell(3)).trim().toLowerCase();
+                while (rows.hasNext()) {
+                    String[] row = rows.next();
+                    String lycee = SheetRowReader.cellule(row, 0);
+                    String nom = SheetRowReader.cellule(row, 1);
+                    String prenom = SheetRowReader.cellule(row, 2);
+                    String email = SheetRowReader.cellule(row, 3).toLowerCase();
 
                     if (email.isEmpty() || !email.contains("@")) continue;
                     if (viewerRepo.existsByEmail(email)) continue;
@@ -79,7 +85,7 @@ public class ExcelService {
                             getOrCreateLycee(lycee, cache, lyceeRepo)));
                 }
             } catch (Exception ex) {
-                System.err.println("Error importing viewers from " + file.getName() + ": " + ex.getMessage());
+                log.error("Error importing viewers from {}: {}", file.getName(), ex.getMessage());
             }
         }
     }
@@ -88,26 +94,25 @@ public class ExcelService {
         File file = new File(folderPath + "/capacites.xlsx");
         if (!file.exists()) return;
 
-        DataFormatter fmt = new DataFormatter();
         List<String> amphis = new ArrayList<>(), tds = new ArrayList<>();
         Map<String, Integer> caps = new HashMap<>();
 
-        try (FileInputStream fis = new FileInputStream(file);
-             Workbook wb = WorkbookFactory.create(fis)) {
+        try (SheetRowReader rows = SheetRowReader.ouvrir(file)) {
+            if (rows.hasNext()) rows.next();
 
-            for (Row row : wb.getSheetAt(0)) {
-                if (row.getRowNum() == 0) continue;
-                String salle = fmt.formatCellValue(row.getCell(0)).trim();
-                String type = fmt.formatCellValue(row.getCell(2)).trim();
+            while (rows.hasNext()) {
+                String[] row = rows.next();
+                String salle = SheetRowReader.cellule(row, 0);
+                String type = SheetRowReader.cellule(row, 2);
                 if (salle.isEmpty()) continue;
 
                 int cap = 30;
-                try { cap = Integer.parseInt(fmt.formatCellValue(row.getCell(3)).trim()); } catch (Exception ignored) {}
+                try { cap = Integer.parseInt(SheetRowReader.cellule(row, 3)); } catch (Exception ignored) {}
                 caps.put(salle, cap);
                 (type.toLowerCase().contains("amphi") ? amphis : tds).add(salle);
             }
         } catch (Exception e) {
-            System.err.println("Error reading rooms: " + e.getMessage());
+            log.error("Error reading rooms: {}", e.getMessage());
             return;
         }
 
@@ -157,50 +162,164 @@ public class ExcelService {
         }
     }
 
-    public byte[] generateWishesExport(List<Activite> activites, List<Voeu> voeux) {
-        try (XSSFWorkbook wb = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-
-            Map<Long, List<Voeu>> byActivite = new HashMap<>();
-            for (Voeu v : voeux) byActivite.computeIfAbsent(v.getActivite().getId(), k -> new ArrayList<>()).add(v);
-
-            for (Activite a : activites) {
-                String name = a.getTitre().replaceAll("[^a-zA-Z0-9 ]", "").trim();
-                if (name.length() > 30) name = name.substring(0, 30);
-                if (name.isEmpty()) name = "Activite " + a.getId();
-                int suffix = 1;
-                String orig = name;
-                while (wb.getSheet(name) != null) name = orig + " " + suffix++;
-
-                Sheet sheet = wb.createSheet(name);
-                Row info = sheet.createRow(0);
-                info.createCell(0).setCellValue("Activite : " + a.getTitre());
-                info.createCell(3).setCellValue("Salle : " + a.getSalle());
-                info.createCell(5).setCellValue("Capacite : " + a.getNbPlaces());
-
-                Row header = sheet.createRow(1);
-                String[] cols = {"Matricule", "Nom", "Prenom", "Lycee", "Classe", "Demi-journee", "Voeu N"};
-                for (int i = 0; i < cols.length; i++) header.createCell(i).setCellValue(cols[i]);
-
-                int idx = 2;
-                for (Voeu v : byActivite.getOrDefault(a.getId(), List.of())) {
-                    Row row = sheet.createRow(idx++);
-                    Etudiant e = v.getEtudiant();
-                    row.createCell(0).setCellValue(e.getMatriculeCsv());
-                    row.createCell(1).setCellValue(e.getNom());
-                    row.createCell(2).setCellValue(e.getPrenom());
-                    row.createCell(3).setCellValue(e.getLycee() != null ? e.getLycee().getNom() : "");
-                    row.createCell(4).setCellValue(e.getClasse());
-                    row.createCell(5).setCellValue(e.getDemiJournee());
-                    row.createCell(6).setCellValue(v.getPriorite());
+    // Export des voeux, une feuille par activite. Classeur fenetre (SXSSF) : seules les
+    // dernieres lignes restent en memoire, le reste part dans un fichier temporaire.
+    // Les largeurs de colonnes viennent de la longueur des textes ecrits (pas d'autoSizeColumn).
+    public void writeWishesExport(OutputStream out, List<Activite> activites) throws IOException {
+        SXSSFWorkbook wb = new SXSSFWorkbook(LIGNES_EN_MEMOIRE);
+        try {
+            lireVoeuxParActivite(activites, new FeuilleExcel(wb));
+            wb.write(out);
+        } finally {
+            wb.dispose();
+            wb.close();
+        }
+    }
+
+    // Variante pour les tres gros volumes : un CSV par activite dans une archive ZIP
+    public void writeWishesCsvZip(OutputStream out, List<Activite> activites) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        lireVoeuxParActivite(activites, new FichierCsv(zip));
+        zip.finish();
+    }
+
+    private void lireVoeuxParActivite(List<Activite> activites, ExportVoeux export) throws IOException {
+        List<Activite> triees = new ArrayList<>(activites);
+        triees.sort(Comparator.comparing(Activite::getId));
+        int[] courante = {-1};
+
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "SELECT v.activite_id, e.matricule_csv, e.nom, e.prenom, l.nom, e.classe, e.demi_journee, v.priorite "
+                            + "FROM voeu v JOIN etudiant e ON e.id = v.etudiant_id LEFT JOIN lycee l ON l.id = e.lycee_id "
+                            + "ORDER BY v.activite_id, v.id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(LIGNES_EN_MEMOIRE);
+            return ps;
+        }, rs -> {
+            long activiteId = rs.getLong(1);
+            try {
+                while (courante[0] < 0 || triees.get(courante[0]).getId() != activiteId) {
+                    if (courante[0] >= 0) export.fermer();
+                    if (++courante[0] >= triees.size()) throw new IllegalStateException("Activite " + activiteId + " absente de la liste");
+                    export.ouvrir(triees.get(courante[0]));
                 }
-                for (int i = 0; i < 7; i++) sheet.autoSizeColumn(i);
+                export.ligne(new String[]{rs.getString(2), rs.getString(3), rs.getString(4),
+                        rs.getString(5) != null ? rs.getString(5) : "", rs.getString(6), rs.getString(7)}, rs.getInt(8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
+        });
 
-            wb.write(out);
-            return out.toByteArray();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
+        // Activites sans aucun voeu : feuille avec en-tete seulement, comme avant
+        if (courante[0] >= 0) export.fermer();
+        while (++courante[0] < triees.size()) {
+            export.ouvrir(triees.get(courante[0]));
+            export.fermer();
+        }
+    }
+
+    private interface ExportVoeux {
+        void ouvrir(Activite a) throws IOException;
+        void ligne(String[] valeurs, int priorite) throws IOException;
+        void fermer() throws IOException;
+    }
+
+    private static final String[] COLONNES_VOEUX = {"Matricule", "Nom", "Prenom", "Lycee", "Classe", "Demi-journee", "Voeu N"};
+
+    private static final class FeuilleExcel implements ExportVoeux {
+        private final SXSSFWorkbook wb;
+        private Sheet sheet;
+        private int idx;
+        private final int[] largeurs = new int[COLONNES_VOEUX.length];
+
+        FeuilleExcel(SXSSFWorkbook wb) {
+            this.wb = wb;
+        }
+
+        @Override
+        public void ouvrir(Activite a) {
+            String name = a.getTitre().replaceAll("[^a-zA-Z0-9 ]", "").trim();
+            if (name.length() > 30) name = name.substring(0, 30);
+            if (name.isEmpty()) name = "Activite " + a.getId();
+            int suffix = 1;
+            String orig = name;
+            while (wb.getSheet(name) != null) name = orig + " " + suffix++;
+
+            sheet = wb.createSheet(name);
+            Row info = sheet.createRow(0);
+            info.createCell(0).setCellValue("Activite : " + a.getTitre());
+            info.createCell(3).setCellValue("Salle : " + a.getSalle());
+            info.createCell(5).setCellValue("Capacite : " + a.getNbPlaces());
+
+            Row header = sheet.createRow(1);
+            for (int i = 0; i < COLONNES_VOEUX.length; i++) {
+                header.createCell(i).setCellValue(COLONNES_VOEUX[i]);
+                largeurs[i] = COLONNES_VOEUX[i].length();
+            }
+            idx = 2;
+        }
+
+        @Override
+        public void ligne(String[] valeurs, int priorite) {
+            Row row = sheet.createRow(idx++);
+            for (int i = 0; i < valeurs.length; i++) {
+                row.createCell(i).setCellValue(valeurs[i]);
+                if (valeurs[i] != null) largeurs[i] = Math.max(largeurs[i], valeurs[i].length());
+            }
+            row.createCell(valeurs.length).setCellValue(priorite);
+        }
+
+        @Override
+        public void fermer() {
+            // Largeur en 1/256e de caractere, bornee au maximum autorise par Excel
+            for (int i = 0; i < largeurs.length; i++) sheet.setColumnWidth(i, Math.min(255, largeurs[i] + 2) * 256);
+        }
+    }
+
+    private static final class FichierCsv implements ExportVoeux {
+        private final ZipOutputStream zip;
+        private final Writer writer;
+        private final Set<String> noms = new HashSet<>();
+
+        FichierCsv(ZipOutputStream zip) {
+            this.zip = zip;
+            // Pas de fermeture du writer : il fermerait la reponse HTTP
+            this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void ouvrir(Activite a) throws IOException {
+            String base = a.getId() + "_" + a.getTitre().replaceAll("[^a-zA-Z0-9]+", "_");
+            if (base.length() > 60) base = base.substring(0, 60);
+            String nom = base;
+            for (int suffix = 1; !noms.add(nom); suffix++) nom = base + "_" + suffix;
+            zip.putNextEntry(new ZipEntry(nom + ".csv"));
+            writer.write('\uFEFF'); // BOM pour qu'Excel detecte l'UTF-8
+            writer.write(String.join(";", COLONNES_VOEUX));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void ligne(String[] valeurs, int priorite) throws IOException {
+            for (String v : valeurs) {
+                writer.write(csv(v));
+                writer.write(';');
+            }
+            writer.write(Integer.toString(priorite));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void fermer() throws IOException {
+            writer.flush();
+            zip.closeEntry();
+        }
+
+        private static String csv(String v) {
+            if (v == null) return "";
+            if (v.indexOf(';') < 0 && v.indexOf('"') < 0 && v.indexOf('\n') < 0) return v;
+            return '"' + v.replace("\"", "\"\"") + '"';
         }
     }
 
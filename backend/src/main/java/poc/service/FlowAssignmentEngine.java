@@ -0,0 +1,204 @@
+package poc.service;
+
+import java.util.Arrays;
+
+// Affectation optimale d'une demi-journee par flot de cout minimum :
+//   source -> eleve (capacite NB_PAR_ELEVE) -> activite voeu (capacite 1, cout POIDS[rang])
+//   -> puits (capacite nbPlaces).
+// Le flot maximum place le plus de presentations possible ; parmi ces solutions, le cout
+// minimum est celui des penalites OBJECTIVE_WEIGHTS (voeux 3, 4, 5), sans tirage au sort.
+// Plus courts chemins successifs avec potentiels (Dijkstra), puis flot bloquant sur les arcs de
+// cout reduit nul : les couts etant des petits entiers, il n'y a que quelques phases.
+public final class FlowAssignmentEngine {
+
+    private static final int SOURCE = 0;
+    private static final int PUITS = 1;
+    private static final long INFINI = Long.MAX_VALUE / 4;
+
+    private final int nbNoeuds;
+    // Graphe en etoile : l'arc i et son inverse i ^ 1
+    private final int[] premier;
+    private final int[] suivant;
+    private final int[] vers;
+    private final int[] capacite;
+    private final int[] cout;
+    private int nbArcs;
+
+    private final long[] potentiel;
+    private final long[] distance;
+    private final int[] niveau;
+    private final int[] courant;
+    private final int[] file;
+
+    private FlowAssignmentEngine(int nbNoeuds, int maxArcs) {
+        this.nbNoeuds = nbNoeuds;
+        this.premier = new int[nbNoeuds];
+        Arrays.fill(premier, -1);
+        this.suivant = new int[2 * maxArcs];
+        this.vers = new int[2 * maxArcs];
+        this.capacite = new int[2 * maxArcs];
+        this.cout = new int[2 * maxArcs];
+        this.potentiel = new long[nbNoeuds];
+        this.distance = new long[nbNoeuds];
+        this.niveau = new int[nbNoeuds];
+        this.courant = new int[nbNoeuds];
+        this.file = new int[nbNoeuds];
+    }
+
+    // Affecte les eleves (indices du snapshot) d'une meme demi-journee ; chacun recoit au plus
+    // NB_PAR_ELEVE activites distinctes parmi ses voeux, dans la limite des places
+    public static AssignmentResult affecter(AssignmentSnapshot snapshot, int[] etudiants) {
+        int m = etudiants.length, p = snapshot.nbActivites();
+        FlowAssignmentEngine reseau = new FlowAssignmentEngine(2 + m + p, m + m * AssignmentSnapshot.NB_VOEUX + p);
+
+        // premierArc[i * NB_VOEUX + k] = arc eleve -> activite du voeu k + 1, -1 si absent ou doublon
+        int[] premierArc = new int[m * AssignmentSnapshot.NB_VOEUX];
+        Arrays.fill(premierArc, -1);
+        for (int i = 0; i < m; i++) {
+            int noeud = 2 + i;
+            reseau.arc(SOURCE, noeud, AssignmentSnapshot.NB_PAR_ELEVE, 0);
+            for (int rang = 1; rang <= AssignmentSnapshot.NB_VOEUX; rang++) {
+                int a = snapshot.voeu(etudiants[i], rang);
+                if (a < 0 || snapshot.dejaDemandee(etudiants[i], rang)) continue;
+                premierArc[i * AssignmentSnapshot.NB_VOEUX + rang - 1] = reseau.arc(noeud, 2 + m + a, 1, ScheduleEngine.POIDS[rang]);
+            }
+        }
+        for (int a = 0; a < p; a++) reseau.arc(2 + m + a, PUITS, snapshot.capacite(a), 0);
+
+        reseau.resoudre();
+
+        AssignmentResult result = new AssignmentResult();
+        for (int i = 0; i < m; i++) {
+            for (int rang = 1; rang <= AssignmentSnapshot.NB_VOEUX; rang++) {
+                int arc = premierArc[i * AssignmentSnapshot.NB_VOEUX + rang - 1];
+                if (arc >= 0 && reseau.capacite[arc] == 0) result.ajouter(etudiants[i], snapshot.voeu(etudiants[i], rang), rang);
+            }
+        }
+        return result;
+    }
+
+    private int arc(int de, int a, int cap, int c) {
+        int i = nbArcs;
+        vers[i] = a;
+        capacite[i] = cap;
+        cout[i] = c;
+        suivant[i] = premier[de];
+        premier[de] = i;
+        vers[i + 1] = de;
+        capacite[i + 1] = 0;
+        cout[i + 1] = -c;
+        suivant[i + 1] = premier[a];
+        premier[a] = i + 1;
+        nbArcs += 2;
+        return i;
+    }
+
+    // Couts initiaux positifs ou nuls : potentiels nuls au depart. Les distances sont bornees par
+    // celle du puits pour que les couts reduits restent positifs, y compris depuis les noeuds non atteints.
+    private void resoudre() {
+        while (dijkstra()) {
+            for (int v = 0; v < nbNoeuds; v++) potentiel[v] += Math.min(distance[v], distance[PUITS]);
+            while (niveaux()) {
+                System.arraycopy(premier, 0, courant, 0, nbNoeuds);
+                while (pousser(SOURCE, Integer.MAX_VALUE) > 0) {
+                    // flot bloquant sur le graphe admissible
+                }
+            }
+        }
+    }
+
+    private long reduit(int u, int i) {
+        return cout[i] + potentiel[u] - potentiel[vers[i]];
+    }
+
+    // Dijkstra sur les couts reduits, tas binaire de (distance, noeud) avec suppression paresseuse
+    private boolean dijkstra() {
+        Arrays.fill(distance, INFINI);
+        distance[SOURCE] = 0;
+        int[] tas = new int[nbArcs + 1];
+        long[] clesTas = new long[nbArcs + 1];
+        int taille = 0;
+        tas[taille] = SOURCE;
+        clesTas[taille++] = 0;
+        while (taille > 0) {
+            long d = clesTas[0];
+            int u = tas[0];
+            taille--;
+            if (taille > 0) descendre(tas, clesTas, taille, tas[taille], clesTas[taille]);
+            if (d > distance[u]) continue;
+            for (int i = premier[u]; i >= 0; i = suivant[i]) {
+                if (capacite[i] == 0) continue;
+                int v = vers[i];
+                long nd = d + reduit(u, i);
+                if (nd < distance[v]) {
+                    distance[v] = nd;
+                    monter(tas, clesTas, taille++, v, nd);
+                }
+            }
+        }
+        return distance[PUITS] < INFINI;
+    }
+
+    private static void monter(int[] tas, long[] cles, int i, int valeur, long cle) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (cles[parent] <= cle) break;
+            tas[i] = tas[parent];
+            cles[i] = cles[parent];
+            i = parent;
+        }
+        tas[i] = valeur;
+        cles[i] = cle;
+    }
+
+    private static void descendre(int[] tas, long[] cles, int taille, int valeur, long cle) {
+        int i = 0;
+        while (true) {
+            int enfant = 2 * i + 1;
+            if (enfant >= taille) break;
+            if (enfant + 1 < taille && cles[enfant + 1] < cles[enfant]) enfant++;
+            if (cles[enfant] >= cle) break;
+            tas[i] = tas[enfant];
+            cles[i] = cles[enfant];
+            i = enfant;
+        }
+        tas[i] = valeur;
+        cles[i] = cle;
+    }
+
+    // Niveaux BFS sur les arcs residuels de cout reduit nul
+    private boolean niveaux() {
+        Arrays.fill(niveau, -1);
+        int tete = 0, queue = 0;
+        niveau[SOURCE] = 0;
+        file[queue++] = SOURCE;
+        while (tete < queue) {
+            int u = file[tete++];
+            for (int i = premier[u]; i >= 0; i = suivant[i]) {
+                int v = vers[i];
+                if (capacite[i] > 0 && niveau[v] < 0 && reduit(u, i) == 0) {
+                    niveau[v] = niveau[u] + 1;
+                    file[queue++] = v;
+                }
+            }
+        }
+        return niveau[PUITS] >= 0;
+    }
+
+    private int pousser(int u, int limite) {
+        if (u == PUITS) return limite;
+        for (; courant[u] >= 0; courant[u] = suivant[courant[u]]) {
+            int i = courant[u];
+            int v = vers[i];
+            if (capacite[i] > 0 && niveau[v] == niveau[u] + 1 && reduit(u, i) == 0) {
+                int pousse = pousser(v, Math.min(limite, capacite[i]));
+                if (pousse > 0) {
+                    capacite[i] -= pousse;
+                    capacite[i ^ 1] += pousse;
+                    return pousse;
+                }
+            }
+        }
+        return 0;
+    }
+}
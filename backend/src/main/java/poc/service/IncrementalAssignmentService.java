@@ -0,0 +1,193 @@
+package poc.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import poc.dto.AffectationDiff;
+import poc.repository.AffectationRepository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Mise a jour des affectations (mode voeux) apres une modification de voeux, sans tout recalculer :
+// seuls les eleves modifies sont replaces, et les places liberees vont aux eleves en attente
+// de la meme demi-journee (meilleur rang de voeu d'abord). Les autres lignes ne sont pas touchees :
+// aucun eleve deja place n'est evince ni replace, meme au profit d'un voeu de meilleur rang.
+// Comme les calculs complets, un eleve ne recoit pas plus de NB_PAR_ELEVE activites.
+@Service
+public class IncrementalAssignmentService {
+
+    // Mode enregistre dans calcul_affectation : aucun moteur ne rejoue ce resultat
+    static final String MODE = "incremental";
+    // Nombre d'ids par requete IN (...)
+    private static final int TAILLE_TRANCHE = 500;
+
+    @Autowired private AffectationRepository affectationRepository;
+    @Autowired private JdbcTemplate jdbc;
+
+    private final Set<Long> etudiantsModifies = ConcurrentHashMap.newKeySet();
+
+    public void signalerModification(Long etudiantId) {
+        etudiantsModifies.add(etudiantId);
+    }
+
+    // Appele apres un recalcul complet : plus rien n'est en attente
+    public void oublierModifications() {
+        etudiantsModifies.clear();
+    }
+
+    // Base restauree ou reinitialisee : les modifications signalees ne correspondent plus a rien
+    @EventListener
+    public void donneesModifiees(DonneesModifiees evenement) {
+        if (evenement.complet()) oublierModifications();
+    }
+
+    @Transactional
+    public List<AffectationDiff> runIncremental() {
+        affectationRepository.flush();
+        Integer planifiees = jdbc.queryForObject("SELECT COUNT(*) FROM affectation WHERE slot IS NOT NULL", Integer.class);
+        if (planifiees != null && planifiees > 0) {
+            throw new RuntimeException("Le mode incremental ne s'applique qu'a l'affectation par voeux.");
+        }
+
+        List<Long> aTraiter = new ArrayList<>(etudiantsModifies);
+        Collections.sort(aTraiter);
+        List<AffectationDiff> diffs = reaffecter(aTraiter);
+        // Les affectations ne sont plus celles du dernier calcul complet : la simulation doit le savoir
+        if (!diffs.isEmpty()) {
+            jdbc.update("INSERT INTO calcul_affectation (mode, calcule_le) VALUES (?, CURRENT_TIMESTAMP)", MODE);
+        }
+        // Les modifications ne sont oubliees qu'une fois la transaction validee : en cas d'echec,
+        // elles restent en attente pour le prochain passage
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                etudiantsModifies.removeAll(aTraiter);
+            }
+        });
+        return diffs;
+    }
+
+    private List<AffectationDiff> reaffecter(List<Long> etudiantIds) {
+        Map<Long, Integer> capacites = new HashMap<>();
+        jdbc.query("SELECT id, nb_places FROM activite", rs -> {
+            Integer nb = rs.getObject(2, Integer.class);
+            capacites.put(rs.getLong(1), nb != null ? nb : AssignmentSnapshot.CAPACITE_PAR_DEFAUT);
+        });
+
+        // Demi-journee, voeux et affectations des eleves a traiter : deux requetes par tranche d'ids
+        Map<Long, String> demiJournees = new HashMap<>();
+        Map<Long, Long[]> voeux = new HashMap<>();
+        // etudiant -> {id, activite_id, rang_voeu} de ses affectations
+        Map<Long, List<Object[]>> affectations = new HashMap<>();
+        for (int debut = 0; debut < etudiantIds.size(); debut += TAILLE_TRANCHE) {
+            List<Long> tranche = etudiantIds.subList(debut, Math.min(debut + TAILLE_TRANCHE, etudiantIds.size()));
+            String ids = String.join(", ", Collections.nCopies(tranche.size(), "?"));
+            Object[] parametres = tranche.toArray();
+            jdbc.query("SELECT e.id, e.demi_journee, v.activite_id, v.priorite FROM etudiant e "
+                    + "LEFT JOIN voeu v ON v.etudiant_id = e.id WHERE e.id IN (" + ids + ") ORDER BY v.id", rs -> {
+                long etudiantId = rs.getLong(1);
+                demiJournees.put(etudiantId, rs.getString(2));
+                Long[] parPriorite = voeux.computeIfAbsent(etudiantId, k -> new Long[AssignmentSnapshot.NB_VOEUX + 1]);
+                Long activiteId = rs.getObject(3, Long.class);
+                int priorite = rs.getInt(4);
+                if (activiteId != null && priorite >= 1 && priorite <= AssignmentSnapshot.NB_VOEUX
+                        && parPriorite[priorite] == null) {
+                    parPriorite[priorite] = activiteId;
+                }
+            }, parametres);
+            jdbc.query("SELECT id, etudiant_id, activite_id, rang_voeu FROM affectation WHERE etudiant_id IN (" + ids + ") "
+                    + "ORDER BY id", rs -> {
+                affectations.computeIfAbsent(rs.getLong(2), k -> new ArrayList<>())
+                        .add(new Object[]{rs.getLong(1), rs.getLong(3), rs.getObject(4, Integer.class)});
+            }, parametres);
+        }
+
+        Map<Long, AffectationDiff> diffs = new LinkedHashMap<>();
+        // Occupation et places liberees, par demi-journee puis par activite
+        Map<String, Map<Long, Integer>> occupation = new HashMap<>();
+        Map<String, Set<Long>> liberees = new HashMap<>();
+        List<Object[]> suppressions = new ArrayList<>();
+        List<Object[]> insertions = new ArrayList<>();
+
+        for (Long etudiantId : etudiantIds) {
+            if (!demiJournees.containsKey(etudiantId)) continue; // eleve supprime entre-temps
+            String demiJournee = demiJournees.get(etudiantId);
+            Map<Long, Integer> occupees = occupation.computeIfAbsent(demiJournee, this::chargerOccupation);
+            Long[] parPriorite = voeux.get(etudiantId);
+
+            // Affectations qui ne correspondent plus aux voeux : supprimees, la place est liberee
+            Set<Long> conservees = new HashSet<>();
+            for (Object[] aff : affectations.getOrDefault(etudiantId, List.of())) {
+                Long activiteId = (Long) aff[1];
+                Integer rang = (Integer) aff[2];
+                boolean valide = rang != null && rang >= 1 && rang <= AssignmentSnapshot.NB_VOEUX
+                        && activiteId.equals(parPriorite[rang]) && conservees.add(activiteId);
+                if (valide) continue;
+                suppressions.add(new Object[]{aff[0]});
+                occupees.merge(activiteId, -1, Integer::sum);
+                liberees.computeIfAbsent(demiJournee, k -> new HashSet<>()).add(activiteId);
+                diffs.computeIfAbsent(etudiantId, AffectationDiff::new).getActivitesRetirees().add(activiteId);
+            }
+
+            // Nouveaux voeux, par priorite, dans la limite des places restantes. Les eleves deja
+            // places ne sont jamais evinces ni replaces : un nouveau voeu sur une activite pleine
+            // reste non satisfait, meme de meilleur rang que celui d'un eleve qui y est place.
+            for (int priorite = 1; priorite <= AssignmentSnapshot.NB_VOEUX; priorite++) {
+                Long activiteId = parPriorite[priorite];
+                if (conservees.size() >= AssignmentSnapshot.NB_PAR_ELEVE) break;
+                if (activiteId == null || conservees.contains(activiteId)) continue;
+                if (occupees.getOrDefault(activiteId, 0) >= capacites.getOrDefault(activiteId, 0)) continue;
+                insertions.add(new Object[]{etudiantId, activiteId, priorite});
+                occupees.merge(activiteId, 1, Integer::sum);
+                conservees.add(activiteId);
+                diffs.computeIfAbsent(etudiantId, AffectationDiff::new).getActivitesAjoutees().add(activiteId);
+            }
+        }
+        if (!suppressions.isEmpty()) jdbc.batchUpdate("DELETE FROM affectation WHERE id = ?", suppressions);
+        inserer(insertions);
+
+        // Places liberees : proposees aux eleves qui attendaient cette activite (ecrites activite par
+        // activite, la requete suivante voit le nombre d'activites deja attribuees a chacun)
+        liberees.forEach((demiJournee, activites) -> {
+            Map<Long, Integer> occupees = occupation.get(demiJournee);
+            for (Long activiteId : activites) {
+                int libres = capacites.getOrDefault(activiteId, 0) - occupees.getOrDefault(activiteId, 0);
+                if (libres <= 0) continue;
+                List<Object[]> attribuees = new ArrayList<>();
+                jdbc.query("SELECT v.etudiant_id, MIN(v.priorite) AS priorite FROM voeu v JOIN etudiant e ON e.id = v.etudiant_id "
+                                + "WHERE v.activite_id = ? AND e.demi_journee IS NOT DISTINCT FROM ? "
+                                + "AND NOT EXISTS (SELECT 1 FROM affectation a WHERE a.etudiant_id = v.etudiant_id "
+                                + "AND a.activite_id = v.activite_id) "
+                                + "AND (SELECT COUNT(*) FROM affectation a WHERE a.etudiant_id = v.etudiant_id) < ? "
+                                + "GROUP BY v.etudiant_id ORDER BY MIN(v.priorite), v.etudiant_id LIMIT ?", rs -> {
+                    long etudiantId = rs.getLong(1);
+                    attribuees.add(new Object[]{etudiantId, activiteId, rs.getInt(2)});
+                    diffs.computeIfAbsent(etudiantId, AffectationDiff::new).getActivitesAjoutees().add(activiteId);
+                }, activiteId, demiJournee, AssignmentSnapshot.NB_PAR_ELEVE, libres);
+                occupees.merge(activiteId, attribuees.size(), Integer::sum);
+                inserer(attribuees);
+            }
+        });
+
+        return new ArrayList<>(diffs.values());
+    }
+
+    private Map<Long, Integer> chargerOccupation(String demiJournee) {
+        Map<Long, Integer> occupees = new HashMap<>();
+        jdbc.query("SELECT a.activite_id, COUNT(*) FROM affectation a JOIN etudiant e ON e.id = a.etudiant_id "
+                        + "WHERE e.demi_journee IS NOT DISTINCT FROM ? GROUP BY a.activite_id",
+                rs -> { occupees.put(rs.getLong(1), rs.getInt(2)); }, demiJournee);
+        return occupees;
+    }
+
+    // {etudiant_id, activite_id, rang_voeu}, en un lot
+    private void inserer(List<Object[]> lignes) {
+        if (lignes.isEmpty()) return;
+        jdbc.batchUpdate("INSERT INTO affectation (etudiant_id, activite_id, rang_voeu) VALUES (?, ?, ?)", lignes);
+    }
+}
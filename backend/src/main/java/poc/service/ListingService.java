@@ -0,0 +1,228 @@
+package poc.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+// Listes d'administration volumineuses (eleves, voeux, affectations) en lignes plates :
+//  - pages par cle (id > dernier id vu), avec un curseur opaque, filtrables par lycee / classe / demi-journee ;
+//  - export complet lu par un curseur JDBC en avant seulement et ecrit au fil de l'eau avec le
+//    generateur de Jackson : la memoire ne depend pas de la taille de la table.
+@Service
+public class ListingService {
+
+    public static final int TAILLE_PAGE_MAX = 1000;
+    private static final int FETCH_SIZE = 500;
+
+    // Colonnes nommees comme les DTO EtudiantLigne, VoeuLigne, AffectationLigne
+    private static final Map<String, Liste> LISTES = Map.of(
+            "etudiants", new Liste("e.id",
+                    "SELECT e.id AS \"id\", e.matricule_csv AS \"matriculeCsv\", e.ine AS \"ine\", e.nom AS \"nom\", "
+                            + "e.prenom AS \"prenom\", e.classe AS \"classe\", e.serie_bac AS \"serieBac\", "
+                            + "e.demi_journee AS \"demiJournee\", e.creneau AS \"creneau\", l.id AS \"lyceeId\", "
+                            + "l.nom AS \"lyceeNom\" FROM etudiant e LEFT JOIN lycee l ON l.id = e.lycee_id"),
+            "voeux", new Liste("v.id",
+                    "SELECT v.id AS \"id\", e.id AS \"etudiantId\", e.matricule_csv AS \"matriculeCsv\", e.nom AS \"nom\", "
+                            + "e.prenom AS \"prenom\", e.classe AS \"classe\", l.nom AS \"lyceeNom\", "
+                            + "v.activite_id AS \"activiteId\", v.priorite AS \"priorite\" "
+                            + "FROM voeu v JOIN etudiant e ON e.id = v.etudiant_id LEFT JOIN lycee l ON l.id = e.lycee_id"),
+            "affectations", new Liste("a.id",
+                    "SELECT a.id AS \"id\", e.id AS \"etudiantId\", e.matricule_csv AS \"matriculeCsv\", e.nom AS \"nom\", "
+                            + "e.prenom AS \"prenom\", e.classe AS \"classe\", l.nom AS \"lyceeNom\", "
+                            + "a.activite_id AS \"activiteId\", a.rang_voeu AS \"rangVoeu\", a.slot AS \"slot\", "
+                            + "a.salle AS \"salle\" FROM affectation a JOIN etudiant e ON e.id = a.etudiant_id "
+                            + "LEFT JOIN lycee l ON l.id = e.lycee_id"));
+
+    @Autowired private JdbcTemplate jdbc;
+    @Autowired private ObjectMapper objectMapper;
+
+    public static boolean existe(String liste) {
+        return LISTES.containsKey(liste);
+    }
+
+    public void verifierCurseur(String liste, String curseur) {
+        if (curseur != null && !curseur.isEmpty()) decoderCurseur(liste, curseur);
+    }
+
+    // {"lignes": [...], "suivant": "<curseur>" | null}
+    public void ecrirePage(OutputStream out, String liste, Filtre filtre, String curseur, int taille) throws IOException {
+        Liste l = liste(liste);
+        int n = Math.max(1, Math.min(taille, TAILLE_PAGE_MAX));
+        long apres = curseur != null && !curseur.isEmpty() ? decoderCurseur(liste, curseur) : 0;
+
+        List<Object> params = new ArrayList<>();
+        String sql = l.select + where(l, filtre, apres, params) + " ORDER BY " + l.cle + " FETCH FIRST " + (n + 1) + " ROWS ONLY";
+        try (JsonGenerator gen = generateur(out)) {
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("lignes");
+            long[] dernier = {apres};
+            int[] lues = {0};
+            boolean suite = lire(sql, params, (rs, colonnes) -> {
+                if (++lues[0] > n) return false;
+                ecrireLigne(gen, rs, colonnes);
+                dernier[0] = rs.getLong(1);
+                return true;
+            });
+            gen.writeEndArray();
+            gen.writeStringField("suivant", suite ? encoderCurseur(liste, dernier[0]) : null);
+            gen.writeEndObject();
+        }
+    }
+
+    // Tableau JSON de toute la liste (filtree), ecrit ligne a ligne
+    public void ecrireTout(OutputStream out, String liste, Filtre filtre) throws IOException {
+        Liste l = liste(liste);
+        List<Object> params = new ArrayList<>();
+        String sql = l.select + where(l, filtre, 0, params) + " ORDER BY " + l.cle;
+        try (JsonGenerator gen = generateur(out)) {
+            gen.writeStartArray();
+            lire(sql, params, (rs, colonnes) -> {
+                ecrireLigne(gen, rs, colonnes);
+                return true;
+            });
+            gen.writeEndArray();
+        }
+    }
+
+    // Curseur en avant seulement ; sur H2, execution paresseuse pour que le resultat ne soit pas
+    // materialise cote base. Renvoie true si la lecture a ete arretee par le consommateur.
+    private boolean lire(String sql, List<Object> params, Consommateur consommateur) {
+        Boolean arrete = jdbc.execute((ConnectionCallback<Boolean>) con -> {
+            boolean h2 = "H2".equals(con.getMetaData().getDatabaseProductName());
+            if (h2) executer(con, "SET LAZY_QUERY_EXECUTION TRUE");
+            try (PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(FETCH_SIZE);
+                for (int i = 0; i < params.size(); i++) ps.setObject(i + 1, params.get(i));
+                try (ResultSet rs = ps.executeQuery()) {
+                    String[] colonnes = colonnes(rs.getMetaData());
+                    while (rs.next()) {
+                        if (!consommateur.ligne(rs, colonnes)) return true;
+                    }
+                    return false;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            } finally {
+                if (h2) executer(con, "SET LAZY_QUERY_EXECUTION FALSE");
+            }
+        });
+        return Boolean.TRUE.equals(arrete);
+    }
+
+    private static String where(Liste l, Filtre filtre, long apres, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        if (apres > 0) {
+            conditions.add(l.cle + " > ?");
+            params.add(apres);
+        }
+        if (filtre != null && filtre.lyceeId != null) {
+            conditions.add("e.lycee_id = ?");
+            params.add(filtre.lyceeId);
+        }
+        if (filtre != null && filtre.classe != null && !filtre.classe.isEmpty()) {
+            conditions.add("e.classe = ?");
+            params.add(filtre.classe);
+        }
+        if (filtre != null && filtre.demiJournee != null && !filtre.demiJournee.isEmpty()) {
+            conditions.add("e.demi_journee = ?");
+            params.add(filtre.demiJournee);
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static void ecrireLigne(JsonGenerator gen, ResultSet rs, String[] colonnes) throws SQLException, IOException {
+        gen.writeStartObject();
+        for (int i = 0; i < colonnes.length; i++) {
+            Object valeur = rs.getObject(i + 1);
+            gen.writeFieldName(colonnes[i]);
+            if (valeur == null) gen.writeNull();
+            else if (valeur instanceof Number nombre) gen.writeNumber(nombre.longValue());
+            else gen.writeString(valeur.toString());
+        }
+        gen.writeEndObject();
+    }
+
+    private static String[] colonnes(ResultSetMetaData meta) throws SQLException {
+        String[] colonnes = new String[meta.getColumnCount()];
+        for (int i = 0; i < colonnes.length; i++) colonnes[i] = meta.getColumnLabel(i + 1);
+        return colonnes;
+    }
+
+    private JsonGenerator generateur(OutputStream out) throws IOException {
+        // Le flux de la reponse HTTP n'est pas ferme par le generateur
+        return objectMapper.getFactory().createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private static void executer(Connection con, String sql) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute(sql);
+        }
+    }
+
+    private static Liste liste(String nom) {
+        Liste l = LISTES.get(nom);
+        if (l == null) throw new IllegalArgumentException("Liste inconnue : " + nom);
+        return l;
+    }
+
+    // Curseur opaque : "<liste>:<dernier id>" en base64url, lie a la liste qui l'a produit
+    static String encoderCurseur(String liste, long dernierId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((liste + ":" + dernierId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static long decoderCurseur(String liste, String curseur) {
+        try {
+            String texte = new String(Base64.getUrlDecoder().decode(curseur), StandardCharsets.UTF_8);
+            int sep = texte.lastIndexOf(':');
+            if (sep < 0 || !texte.substring(0, sep).equals(liste)) throw new IllegalArgumentException();
+            return Long.parseLong(texte.substring(sep + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Curseur invalide");
+        }
+    }
+
+    public static final class Filtre {
+        final Long lyceeId;
+        final String classe;
+        final String demiJournee;
+
+        public Filtre(Long lyceeId, String classe, String demiJournee) {
+            this.lyceeId = lyceeId;
+            this.classe = classe;
+            this.demiJournee = demiJournee;
+        }
+    }
+
+    private static final class Liste {
+        final String cle;
+        final String select;
+
+        Liste(String cle, String select) {
+            this.cle = cle;
+            this.select = select;
+        }
+    }
+
+    private interface Consommateur {
+        boolean ligne(ResultSet rs, String[] colonnes) throws SQLException, IOException;
+    }
+}
@@ -0,0 +1,100 @@
+package poc.service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Loterie rejouable : un tirage par graine sur le snapshot (jamais modifie), puis note de
+// satisfaction pour retenir le meilleur de N. Une meme graine redonne exactement le meme resultat
+// (AssignmentEngine.affecter par graine, le tirage du mode voeux : memes graines par demi-journee).
+public final class MultiSeedLottery {
+
+    private MultiSeedLottery() {
+    }
+
+    public static Tirage tirer(AssignmentSnapshot snapshot, List<int[]> partitions, long graine) {
+        AssignmentResult result = AssignmentEngine.affecter(snapshot, partitions, graine);
+        return new Tirage(graine, result, noter(snapshot, result));
+    }
+
+    static Score noter(AssignmentSnapshot snapshot, AssignmentResult result) {
+        int n = snapshot.nbEtudiants();
+        int[] places = new int[n];
+        for (int i = 0; i < result.taille(); i++) places[result.etudiant(i)]++;
+
+        int[] manques = new int[AssignmentSnapshot.NB_VOEUX + 1];
+        int sansAffectation = 0;
+        // Par lycee : {voeux exprimes, voeux obtenus}
+        Map<Long, int[]> parLycee = new HashMap<>();
+        for (int e = 0; e < n; e++) {
+            int voeux = 0;
+            for (int rang = 1; rang <= AssignmentSnapshot.NB_VOEUX; rang++) {
+                if (snapshot.voeu(e, rang) >= 0) {
+                    voeux++;
+                    manques[rang]++;
+                }
+            }
+            if (voeux == 0) continue;
+            if (places[e] == 0) sansAffectation++;
+            if (snapshot.lyceeId(e) >= 0) {
+                int[] compte = parLycee.computeIfAbsent(snapshot.lyceeId(e), k -> new int[2]);
+                compte[0] += voeux;
+                compte[1] += places[e];
+            }
+        }
+        for (int rang = 1; rang <= AssignmentSnapshot.NB_VOEUX; rang++) manques[rang] -= result.nbParRang(rang);
+
+        double min = 1, max = 0;
+        for (int[] compte : parLycee.values()) {
+            double taux = (double) compte[1] / compte[0];
+            min = Math.min(min, taux);
+            max = Math.max(max, taux);
+        }
+        return new Score(sansAffectation, manques, parLycee.isEmpty() ? 0 : max - min);
+    }
+
+    public static final class Tirage {
+        public final long graine;
+        public final AssignmentResult result;
+        public final Score score;
+
+        Tirage(long graine, AssignmentResult result, Score score) {
+            this.graine = graine;
+            this.result = result;
+            this.score = score;
+        }
+    }
+
+    // Ordre lexicographique, plus petit = meilleur : eleves sans aucune activite, puis voeux
+    // manques rang par rang (1 d'abord), puis ecart de satisfaction entre lycees
+    public static final class Score implements Comparable<Score> {
+        final int sansAffectation;
+        // manques[r] = voeux de rang r exprimes mais non obtenus
+        final int[] manques;
+        final double ecartLycees;
+
+        Score(int sansAffectation, int[] manques, double ecartLycees) {
+            this.sansAffectation = sansAffectation;
+            this.manques = manques;
+            this.ecartLycees = ecartLycees;
+        }
+
+        @Override
+        public int compareTo(Score autre) {
+            if (sansAffectation != autre.sansAffectation) return Integer.compare(sansAffectation, autre.sansAffectation);
+            for (int rang = 1; rang <= AssignmentSnapshot.NB_VOEUX; rang++) {
+                if (manques[rang] != autre.manques[rang]) return Integer.compare(manques[rang], autre.manques[rang]);
+            }
+            return Double.compare(ecartLycees, autre.ecartLycees);
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("sansAffectation", sansAffectation);
+            for (int rang = 1; rang <= AssignmentSnapshot.NB_VOEUX; rang++) m.put("manquesVoeu" + rang, manques[rang]);
+            m.put("ecartLycees", Math.round(ecartLycees * 1000) / 1000.0);
+            return m;
+        }
+    }
+}
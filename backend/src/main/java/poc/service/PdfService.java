@@ -1,91 +1,284 @@
 package poc.service;
 
 import com.lowagie.text.*;
+import com.lowagie.text.pdf.PdfCopy;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfReader;
 import com.lowagie.text.pdf.PdfWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import poc.model.Affectation;
-import poc.model.Etudiant;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 @Service
 public class PdfService {
 
-    public ByteArrayInputStream generateTickets(List<Affectation> affectations) {
-        Document document = new Document();
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
+    // Polices creees une seule fois et partagees par toutes les pages
+    private static final Font TITLE_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
+    private static final Font NORMAL_FONT = FontFactory.getFont(FontFactory.HELVETICA, 12);
 
-        try {
-            PdfWriter.getInstance(document, out);
-            document.open();
+    private static final int ELEVES_PAR_LOT = 200;
 
-            // Group by Student
-            Map<Etudiant, List<Affectation>> byStudent = affectations.stream()
-                    .collect(Collectors.groupingBy(Affectation::getEtudiant));
+    // Horaires des slots (SLOT_TIMES_MATIN / SLOT_TIMES_APREM de room_attribution/config.py)
+    private static final String[] HORAIRES_MATIN = {"08h30-09h15", "09h15-10h00", "10h00-10h45", "10h45-11h30", "11h30-12h15"};
+    private static final String[] HORAIRES_APREM = {"13h30-14h15", "14h15-15h00", "15h00-15h45", "15h45-16h30", "16h30-17h15"};
 
-            for (Map.Entry<Etudiant, List<Affectation>> entry : byStudent.entrySet()) {
-                Etudiant etudiant = entry.getKey();
-                List<Affectation> studentAffectations = entry.getValue();
+    @Autowired private JdbcTemplate jdbc;
+    @Autowired private ExecutorService exportExecutor;
 
-                addStudentTicket(document, etudiant, studentAffectations);
-                document.newPage();
-            }
+    // Ecrit les convocations directement dans le flux de sortie. Les eleves sont lus dans l'ordre
+    // (curseur JDBC), rendus par lots en parallele puis recopies dans l'ordre : seuls quelques
+    // lots sont en memoire a la fois, quelle que soit la taille de la promotion.
+    public void writeTickets(OutputStream out, Long lyceeId, String demiJournee) throws IOException {
+        List<Object> params = new ArrayList<>();
+        StringBuilder filtre = new StringBuilder();
+        if (lyceeId != null) {
+            filtre.append(" AND e.lycee_id = ?");
+            params.add(lyceeId);
+        }
+        if (demiJournee != null) {
+            filtre.append(" AND e.demi_journee = ?");
+            params.add(demiJournee);
+        }
+        ecrireTickets(out, filtre.toString(), params, true);
+    }
 
-            document.close();
+    // Variante pour l'envoi : un PDF par lycee et par demi-journee dans une archive ZIP, nommes
+    // comme l'export filtre. Les filtres eventuels restreignent les groupes produits.
+    public void writeTicketsZip(OutputStream out, Long lyceeId, String demiJournee) throws IOException {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT DISTINCT e.lycee_id, e.demi_journee FROM affectation a "
+                + "JOIN etudiant e ON e.id = a.etudiant_id WHERE 1 = 1");
+        if (lyceeId != null) {
+            sql.append(" AND e.lycee_id = ?");
+            params.add(lyceeId);
+        }
+        if (demiJournee != null) {
+            sql.append(" AND e.demi_journee = ?");
+            params.add(demiJournee);
+        }
+        sql.append(" ORDER BY e.lycee_id, e.demi_journee");
+        List<Map<String, Object>> groupes = jdbc.queryForList(sql.toString(), params.toArray());
 
+        ZipOutputStream zip = new ZipOutputStream(out);
+        for (Map<String, Object> groupe : groupes) {
+            Number lycee = (Number) groupe.get("lycee_id");
+            String dj = (String) groupe.get("demi_journee");
+            zip.putNextEntry(new ZipEntry(nomFichier(lycee != null ? lycee.longValue() : null, dj)));
+            // Lycee ou demi-journee absents : groupe "sans", selectionne par IS NOT DISTINCT FROM
+            ecrireTickets(zip, " AND e.lycee_id IS NOT DISTINCT FROM ? AND e.demi_journee IS NOT DISTINCT FROM ?",
+                    Arrays.asList(lycee, dj), false);
+            zip.closeEntry();
+        }
+        zip.finish();
+    }
+
+    // Meme nom pour un export filtre et pour une entree de l'archive
+    public static String nomFichier(Long lyceeId, String demiJournee) {
+        return "convocations"
+                + (lyceeId != null ? "_lycee" + lyceeId : "")
+                + (demiJournee != null ? "_dj" + demiJournee.replaceAll("[^A-Za-z0-9]", "") : "")
+                + ".pdf";
+    }
+
+    // fermerFlux = false dans une archive : la fermeture du document ne doit pas fermer le ZIP
+    private void ecrireTickets(OutputStream out, String filtre, List<Object> params, boolean fermerFlux) throws IOException {
+        Document document = new Document();
+        PdfCopy copy;
+        try {
+            copy = new PdfCopy(document, out);
         } catch (DocumentException e) {
-            e.printStackTrace();
+            throw new IOException(e);
+        }
+        copy.setCloseStream(fermerFlux);
+        document.open();
+
+        Deque<Future<byte[]>> enCours = new ArrayDeque<>();
+        int maxEnCours = 2 * Runtime.getRuntime().availableProcessors();
+        List<Ticket> lot = new ArrayList<>(ELEVES_PAR_LOT);
+        Ticket[] courant = new Ticket[1];
+        int[] nbTickets = new int[1];
+
+        StringBuilder sql = new StringBuilder(
+                "SELECT e.id, e.nom, e.prenom, e.matricule_csv, l.nom, act.type, act.titre, "
+                        + "COALESCE(a.salle, act.salle), a.slot, e.creneau, e.demi_journee FROM affectation a "
+                        + "JOIN etudiant e ON e.id = a.etudiant_id "
+                        + "JOIN activite act ON act.id = a.activite_id "
+                        + "LEFT JOIN lycee l ON l.id = e.lycee_id WHERE 1 = 1");
+        sql.append(filtre);
+        sql.append(" ORDER BY e.id, a.slot, a.rang_voeu");
+
+        // Sur un echec (rendu, ecriture, lecture), les lots encore en file sont annules
+        try {
+            jdbc.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql.toString(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(500);
+                for (int i = 0; i < params.size(); i++) ps.setObject(i + 1, params.get(i));
+                return ps;
+            }, rs -> {
+                long etudiantId = rs.getLong(1);
+                if (courant[0] == null || courant[0].etudiantId != etudiantId) {
+                    courant[0] = new Ticket(etudiantId, rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5));
+                    lot.add(courant[0]);
+                    nbTickets[0]++;
+                    // Le lot n'est envoye que lorsque l'eleve suivant commence, pour ne pas couper un eleve
+                    if (lot.size() > ELEVES_PAR_LOT) {
+                        Ticket suivant = lot.remove(lot.size() - 1);
+                        enCours.add(exportExecutor.submit(rendu(new ArrayList<>(lot))));
+                        lot.clear();
+                        lot.add(suivant);
+                        while (enCours.size() > maxEnCours) copier(copy, enCours.poll());
+                    }
+                }
+                Integer slot = rs.getObject(9, Integer.class);
+                String heure = slot != null ? horaire(slot, rs.getObject(10, Integer.class), rs.getString(11)) : null;
+                courant[0].lignes.add(new String[]{rs.getString(6), rs.getString(7), rs.getString(8), heure});
+            });
+
+            if (!lot.isEmpty()) enCours.add(exportExecutor.submit(rendu(lot)));
+            if (nbTickets[0] == 0) enCours.add(exportExecutor.submit(this::pageVide));
+            while (!enCours.isEmpty()) copier(copy, enCours.poll());
+        } catch (RuntimeException e) {
+            enCours.forEach(t -> t.cancel(true));
+            throw e;
         }
+        document.close();
+    }
 
-        return new ByteArrayInputStream(out.toByteArray());
+    private java.util.concurrent.Callable<byte[]> rendu(List<Ticket> tickets) {
+        return () -> {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            Document document = new Document();
+            PdfWriter.getInstance(document, buffer);
+            document.open();
+            for (Ticket ticket : tickets) {
+                addStudentTicket(document, ticket);
+                document.newPage();
+            }
+            document.close();
+            return buffer.toByteArray();
+        };
     }
 
-    private void addStudentTicket(Document document, Etudiant etudiant, List<Affectation> affectations) throws DocumentException {
-        Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
-        Font normalFont = FontFactory.getFont(FontFactory.HELVETICA, 12);
+    private byte[] pageVide() throws DocumentException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter.getInstance(document, buffer);
+        document.open();
+        document.add(new Paragraph("Aucune affectation pour cette selection.", NORMAL_FONT));
+        document.close();
+        return buffer.toByteArray();
+    }
+
+    // Recopie les pages d'un lot dans le document final, puis libere le lot
+    private void copier(PdfCopy copy, Future<byte[]> lot) {
+        try {
+            PdfReader reader = new PdfReader(lot.get());
+            for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                copy.addPage(copy.getImportedPage(reader, page));
+            }
+            copy.freeReader(reader);
+            reader.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Export PDF interrompu", e);
+        } catch (ExecutionException | IOException | DocumentException e) {
+            throw new RuntimeException("Erreur export PDF : " + e.getMessage(), e);
+        }
+    }
 
-        Paragraph title = new Paragraph("FESUP 2026 - Convocation", titleFont);
+    private void addStudentTicket(Document document, Ticket ticket) throws DocumentException {
+        Paragraph title = new Paragraph("FESUP 2026 - Convocation", TITLE_FONT);
         title.setAlignment(Element.ALIGN_CENTER);
         document.add(title);
 
         document.add(new Paragraph("\n"));
 
-        document.add(new Paragraph("Nom : " + etudiant.getNom().toUpperCase() + " " + etudiant.getPrenom(), normalFont));
-        document.add(new Paragraph("Matricule : " + etudiant.getMatriculeCsv(), normalFont));
-        if (etudiant.getLycee() != null) {
-            document.add(new Paragraph("Lycée : " + etudiant.getLycee().getNom(), normalFont));
+        String nom = ticket.nom != null ? ticket.nom.toUpperCase() : "";
+        document.add(new Paragraph("Nom : " + nom + " " + ticket.prenom, NORMAL_FONT));
+        document.add(new Paragraph("Matricule : " + ticket.matricule, NORMAL_FONT));
+        if (ticket.lycee != null) {
+            document.add(new Paragraph("Lycée : " + ticket.lycee, NORMAL_FONT));
         }
 
-        document.add(new Paragraph("\nVotre parcours :", normalFont));
+        document.add(new Paragraph("\nVotre parcours :", NORMAL_FONT));
         document.add(new Paragraph("\n"));
 
-        PdfPTable table = new PdfPTable(3);
+        // Colonne Horaire seulement pour un planning (affectations avec slot)
+        boolean planifie = ticket.lignes.stream().anyMatch(ligne -> ligne[3] != null);
+        PdfPTable table = new PdfPTable(planifie ? 4 : 3);
         table.setWidthPercentage(100);
-        table.setWidths(new int[]{1, 3, 1});
+        table.setWidths(planifie ? new int[]{2, 1, 3, 1} : new int[]{1, 3, 1});
 
+        if (planifie) addTableHeader(table, "Horaire");
         addTableHeader(table, "Type");
         addTableHeader(table, "Activité");
         addTableHeader(table, "Salle");
 
-        for (Affectation aff : affectations) {
-            table.addCell(aff.getActivite().getType().toString());
-            table.addCell(aff.getActivite().getTitre());
-            table.addCell(aff.getActivite().getSalle() != null ? aff.getActivite().getSalle() : "Non définie");
+        for (String[] ligne : ticket.lignes) {
+            if (planifie) table.addCell(ligne[3] != null ? ligne[3] : "");
+            table.addCell(ligne[0] != null ? ligne[0] : "");
+            table.addCell(ligne[1]);
+            table.addCell(ligne[2] != null ? ligne[2] : "Non définie");
         }
 
         document.add(table);
     }
 
+    // Demi-journee 0 a 3 (get_half_day : creneau / 2), a defaut la demi-journee importee (1 a 4) ;
+    // les demi-journees paires sont des matinees (get_slot_time)
+    static String horaire(int slot, Integer creneau, String demiJournee) {
+        int demi = -1;
+        if (creneau != null && creneau >= 0) {
+            demi = creneau / 2;
+        } else if (demiJournee != null) {
+            try {
+                demi = Integer.parseInt(demiJournee.trim()) - 1;
+            } catch (NumberFormatException e) {
+                // demi-journee non numerique : horaire inconnu
+            }
+        }
+        if (demi < 0 || slot < 0 || slot >= HORAIRES_MATIN.length) return "Slot " + (slot + 1);
+        String jour = "Jour " + (demi / 2 + 1) + " ";
+        return jour + (demi % 2 == 0 ? HORAIRES_MATIN[slot] : HORAIRES_APREM[slot]);
+    }
+
     private void addTableHeader(PdfPTable table, String headerTitle) {
         PdfPCell header = new PdfPCell();
         header.setBackgroundColor(java.awt.Color.LIGHT_GRAY);
         header.setPhrase(new Phrase(headerTitle));
         table.addCell(header);
     }
+
+    private static final class Ticket {
+        final long etudiantId;
+        final String nom, prenom, matricule, lycee;
+        final List<String[]> lignes = new ArrayList<>(4);
+
+        Ticket(long etudiantId, String nom, String prenom, String matricule, String lycee) {
+            this.etudiantId = etudiantId;
+            this.nom = nom;
+            this.prenom = prenom;
+            this.matricule = matricule;
+            this.lycee = lycee;
+        }
+    }
 }
@@ -0,0 +1,142 @@
+package poc.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import poc.dto.ImportReport;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Metriques metier du pipeline (affectation, imports, saisie des voeux, exports), publiees sur
+// /actuator/prometheus avec les metriques standard (http.server.requests, spring.data.repository.invocations).
+// Les chemins chauds passent par JdbcTemplate, que les metriques de repositories ne voient pas :
+// leurs requetes sont mesurees par fesup.jdbc.duree.
+@Service
+public class PipelineMetrics {
+
+    @Autowired private MeterRegistry registry;
+
+    // Duree d'un calcul d'affectation, tous modes (voeux, planning, optimal, loterie, incremental)
+    public void affectation(String mode, long nanos, boolean succes) {
+        Timer.builder("fesup.affectation.duree")
+                .description("Duree d'un calcul d'affectation, persistance comprise")
+                .tag("mode", mode)
+                .tag("resultat", succes ? "ok" : "echec")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Requetes JdbcTemplate des chemins chauds, par nom fixe (voeux.merge, referentiel, ...)
+    public void requete(String nom, long nanos) {
+        Timer.builder("fesup.jdbc.duree")
+                .description("Duree des requetes JdbcTemplate des chemins chauds")
+                .tag("requete", nom)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Placements obtenus par rang de voeu (1 a 5) lors d'une affectation complete
+    public void placements(String mode, AssignmentResult result) {
+        for (int rang = 1; rang <= AssignmentSnapshot.NB_VOEUX; rang++) {
+            Counter.builder("fesup.affectation.placements")
+                    .description("Placements par rang de voeu obtenu")
+                    .tag("mode", mode)
+                    .tag("rang", String.valueOf(rang))
+                    .register(registry)
+                    .increment(result.nbParRang(rang));
+        }
+        Counter.builder("fesup.affectation.incomplets")
+                .description("Eleves sans planning complet")
+                .tag("mode", mode)
+                .register(registry)
+                .increment(result.incomplets());
+    }
+
+    // Bilan d'un fichier importe : lignes lues, rejets, debit. Etiquette type (eleves, voeux, inputs)
+    // et jamais le nom du fichier, choisi par l'utilisateur : une serie par fichier sinon
+    public void importTermine(String type, ImportReport report) {
+        long lignes = (long) report.getInseres() + report.getMisAJour() + report.getIgnores();
+        Counter.builder("fesup.import.lignes")
+                .description("Lignes lues par les imports")
+                .tag("type", type)
+                .register(registry)
+                .increment(lignes);
+        Counter.builder("fesup.import.rejets")
+                .description("Lignes ignorees ou rejetees par les imports")
+                .tag("type", type)
+                .register(registry)
+                .increment(report.getIgnores());
+        Timer.builder("fesup.import.duree")
+                .tag("type", type)
+                .register(registry)
+                .record(report.getDureeMs(), TimeUnit.MILLISECONDS);
+        if (report.getDureeMs() > 0) {
+            DistributionSummary.builder("fesup.import.debit")
+                    .description("Lignes importees par seconde")
+                    .baseUnit("lignes/s")
+                    .tag("type", type)
+                    .register(registry)
+                    .record(lignes * 1000.0 / report.getDureeMs());
+        }
+    }
+
+    // Soumission de voeux par un eleve (le compte par seconde donne le debit)
+    public void voeuxSoumis(long nanos, boolean succes) {
+        Timer.builder("fesup.voeux.soumissions")
+                .description("Enregistrement des voeux d'un eleve")
+                .tag("resultat", succes ? "ok" : "echec")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // motif : nombre, doublon, activite, regle345
+    public void voeuxInvalides(String motif) {
+        Counter.builder("fesup.voeux.invalides")
+                .description("Soumissions de voeux refusees par la validation")
+                .tag("motif", motif)
+                .register(registry)
+                .increment();
+    }
+
+    // Enveloppe un export en flux : duree d'ecriture et octets envoyes, par format (pdf, xlsx, zip)
+    public StreamingResponseBody export(String format, StreamingResponseBody corps) {
+        return out -> {
+            long debut = System.nanoTime();
+            long[] octets = new long[1];
+            boolean succes = false;
+            try {
+                corps.writeTo(new FilterOutputStream(out) {
+                    @Override
+                    public void write(int b) throws IOException {
+                        out.write(b);
+                        octets[0]++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                        octets[0] += len;
+                    }
+                });
+                succes = true;
+            } finally {
+                Timer.builder("fesup.export.duree")
+                        .tag("format", format)
+                        .tag("resultat", succes ? "ok" : "echec")
+                        .register(registry)
+                        .record(System.nanoTime() - debut, TimeUnit.NANOSECONDS);
+                DistributionSummary.builder("fesup.export.taille")
+                        .baseUnit("bytes")
+                        .tag("format", format)
+                        .register(registry)
+                        .record(octets[0]);
+            }
+        };
+    }
+}
@@ -0,0 +1,134 @@
+package poc.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import poc.model.Activite;
+import poc.model.Lycee;
+import poc.model.TypeActivite;
+
+import java.util.*;
+import java.util.zip.CRC32;
+
+// Cache en lecture des activites et lycees : un instantane immuable (listes, types par id, JSON
+// deja serialise et ETag) est charge au premier acces puis partage par tous les appels.
+// Les chemins qui modifient ces tables (suppressions et imports admin, DataInitializer) publient
+// DonneesModifiees ; l'instantane suivant est recharge a la demande.
+@Service
+public class ReferenceDataCache {
+
+    @Autowired private JdbcTemplate jdbc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private PipelineMetrics pipelineMetrics;
+
+    private volatile Snapshot snapshot;
+    // Incremente a chaque invalidation : un chargement concurrent d'une invalidation n'est pas publie
+    private long generation;
+
+    public void invalider() {
+        synchronized (this) {
+            generation++;
+            snapshot = null;
+        }
+    }
+
+    @EventListener
+    public void donneesModifiees(DonneesModifiees evenement) {
+        if (evenement.touche(DonneesModifiees.Perimetre.LYCEES, DonneesModifiees.Perimetre.ACTIVITES)) invalider();
+    }
+
+    public Snapshot snapshot() {
+        Snapshot s = snapshot;
+        if (s != null) return s;
+        long g;
+        synchronized (this) {
+            if (snapshot != null) return snapshot;
+            g = generation;
+        }
+        long debut = System.nanoTime();
+        s = charger();
+        pipelineMetrics.requete("referentiel", System.nanoTime() - debut);
+        synchronized (this) {
+            if (generation == g && snapshot == null) snapshot = s;
+        }
+        return s;
+    }
+
+    public List<Activite> activites() { return snapshot().activites; }
+
+    public List<Lycee> lycees() { return snapshot().lycees; }
+
+    // id -> type, pour la regle 3-4-5 sans relire les activites
+    public Map<Long, TypeActivite> typesActivites() { return snapshot().types; }
+
+    private Snapshot charger() {
+        List<Activite> activites = jdbc.query("SELECT id, titre, type, nb_places, salle FROM activite ORDER BY id", (rs, i) -> {
+            Activite a = new Activite();
+            a.setId(rs.getLong(1));
+            a.setTitre(rs.getString(2));
+            a.setType(rs.getString(3) != null ? TypeActivite.valueOf(rs.getString(3)) : null);
+            a.setNbPlaces(rs.getObject(4, Integer.class));
+            a.setSalle(rs.getString(5));
+            return a;
+        });
+        List<Lycee> lycees = jdbc.query("SELECT id, nom FROM lycee ORDER BY id", (rs, i) -> {
+            Lycee l = new Lycee();
+            l.setId(rs.getLong(1));
+            l.setNom(rs.getString(2));
+            return l;
+        });
+        Map<Long, TypeActivite> types = new HashMap<>();
+        for (Activite a : activites) types.put(a.getId(), a.getType());
+        return new Snapshot(activites, lycees, types, json(activites), json(lycees));
+    }
+
+    private Json json(Object valeur) {
+        try {
+            byte[] corps = objectMapper.writeValueAsBytes(valeur);
+            CRC32 crc = new CRC32();
+            crc.update(corps);
+            return new Json(corps, "\"" + Long.toHexString(crc.getValue()) + "-" + corps.length + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Serialisation du referentiel impossible", e);
+        }
+    }
+
+    public static final class Snapshot {
+        private final List<Activite> activites;
+        private final List<Lycee> lycees;
+        private final Map<Long, TypeActivite> types;
+        private final Json activitesJson;
+        private final Json lyceesJson;
+
+        private Snapshot(List<Activite> activites, List<Lycee> lycees, Map<Long, TypeActivite> types,
+                         Json activitesJson, Json lyceesJson) {
+            this.activites = Collections.unmodifiableList(activites);
+            this.lycees = Collections.unmodifiableList(lycees);
+            this.types = Collections.unmodifiableMap(types);
+            this.activitesJson = activitesJson;
+            this.lyceesJson = lyceesJson;
+        }
+
+        public Json activitesJson() { return activitesJson; }
+
+        public Json lyceesJson() { return lyceesJson; }
+    }
+
+    // Corps JSON pret a envoyer et son ETag (CRC du contenu : stable d'un redemarrage a l'autre)
+    public static final class Json {
+        private final byte[] corps;
+        private final String etag;
+
+        private Json(byte[] corps, String etag) {
+            this.corps = corps;
+            this.etag = etag;
+        }
+
+        public byte[] corps() { return corps; }
+
+        public String etag() { return etag; }
+    }
+}
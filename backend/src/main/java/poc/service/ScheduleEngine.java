@@ -0,0 +1,356 @@
+package poc.service;
+
+import poc.model.TypeActivite;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Planning horaire d'une demi-journee, equivalent Java du modele CP-SAT de
+// room_attribution/src/optimizer.py :
+//  C1-C2 voeux 1 et 2 obligatoires, C3 exactement 4 presentations, C4 pas de repetition,
+//  C5 une presentation par slot valide, C6/C6b une presentation par salle et par slot,
+//  C7 capacite des salles, C8-C9 au plus 1 table ronde et 1 flash metier.
+// Heuristique constructive (ouverture des sessions puis placement des eleves les plus
+// contraints d'abord) suivie d'une recherche locale (deplacement, echange avec un eleve
+// deja place, changement de salle) qui minimise les penalites OBJECTIVE_WEIGHTS.
+public final class ScheduleEngine {
+
+    public static final int NB_SLOTS = 5;
+    public static final int NB_PAR_ELEVE = AssignmentSnapshot.NB_PAR_ELEVE;
+    // Penalite par rang de voeu utilise (OBJECTIVE_WEIGHTS de room_attribution/config.py)
+    static final int[] POIDS = {0, 0, 0, 1, 5, 10};
+    private static final int MAX_PASSES = 20;
+    private static final int[][] PERMUTATIONS = permutations();
+
+    private final AssignmentSnapshot snapshot;
+    private final int[] etudiants;
+    private final int m;
+    private final int nbPres;
+    private final String[] nomsSalles;
+    private final int[] capSalles;
+
+    private final int[] salleDe;    // [p * NB_SLOTS + t] salle de la session, -1 si fermee
+    private final int[] presDans;   // [r * NB_SLOTS + t] presentation dans la salle, -1 si libre
+    private final int[] charge;     // [p * NB_SLOTS + t] eleves inscrits a la session
+    private final int[] choix;      // [i * NB_SLOTS + t] presentation suivie au slot t, -1
+    private final int[][][] combos; // combos[i][c] = {p0..p3, rang0..rang3, cout}
+    private final int[] comboCourant;
+    private final int[] permCourante;
+
+    private ScheduleEngine(AssignmentSnapshot snapshot, int[] etudiants, String[] nomsSalles, int[] capSalles) {
+        this.snapshot = snapshot;
+        this.etudiants = etudiants;
+        this.m = etudiants.length;
+        this.nbPres = snapshot.nbActivites();
+        this.nomsSalles = nomsSalles;
+        this.capSalles = capSalles;
+        this.salleDe = rempli(nbPres * NB_SLOTS);
+        this.presDans = rempli(capSalles.length * NB_SLOTS);
+        this.charge = new int[nbPres * NB_SLOTS];
+        this.choix = rempli(m * NB_SLOTS);
+        this.combos = new int[m][][];
+        this.comboCourant = rempli(m);
+        this.permCourante = rempli(m);
+    }
+
+    // Planifie les eleves (indices du snapshot) d'une meme demi-journee dans les salles donnees
+    public static AssignmentResult planifier(AssignmentSnapshot snapshot, int[] etudiants,
+                                             String[] nomsSalles, int[] capSalles) {
+        ScheduleEngine engine = new ScheduleEngine(snapshot, etudiants, nomsSalles, capSalles);
+        engine.construire();
+        engine.ameliorer();
+        return engine.resultat();
+    }
+
+    // --- Heuristique constructive ---
+
+    private void construire() {
+        for (int i = 0; i < m; i++) combos[i] = combinaisons(etudiants[i]);
+        ouvrirSessions();
+
+        Integer[] ordre = new Integer[m];
+        int[] difficulte = new int[m];
+        for (int i = 0; i < m; i++) {
+            ordre[i] = i;
+            if (combos[i].length == 0) continue;
+            for (int k = 0; k < NB_PAR_ELEVE; k++) {
+                int p = combos[i][0][k];
+                for (int t = 0; t < NB_SLOTS; t++) if (salleDe[p * NB_SLOTS + t] >= 0) difficulte[i]++;
+            }
+        }
+        // Les eleves dont les presentations ont le moins de sessions passent en premier
+        Arrays.sort(ordre, Comparator.comparingInt(i -> difficulte[i]));
+        for (int i : ordre) {
+            for (int c = 0; c < combos[i].length; c++) {
+                if (placer(i, c)) break;
+            }
+        }
+    }
+
+    // Ouvre des sessions (salle, slot) jusqu'a couvrir la demande de chaque presentation
+    private void ouvrirSessions() {
+        int[] demande = new int[nbPres];
+        boolean[] demandeTot = new boolean[nbPres];
+        boolean[] demandeTard = new boolean[nbPres];
+        int[] besoinSlot = new int[NB_SLOTS];
+        for (int i = 0; i < m; i++) {
+            int premier = premierSlot(i);
+            for (int t = premier; t < premier + NB_PAR_ELEVE; t++) besoinSlot[t]++;
+            if (combos[i].length == 0) continue;
+            for (int k = 0; k < NB_PAR_ELEVE; k++) {
+                int p = combos[i][0][k];
+                demande[p]++;
+                if (premier == 0) demandeTot[p] = true; else demandeTard[p] = true;
+            }
+        }
+
+        int[] offre = new int[nbPres];
+        int[] offreSlot = new int[NB_SLOTS];
+        boolean[] sature = new boolean[nbPres];
+        while (true) {
+            int p = -1;
+            for (int q = 0; q < nbPres; q++) {
+                if (!sature[q] && demande[q] > offre[q]
+                        && (p < 0 || demande[q] - offre[q] > demande[p] - offre[p])) p = q;
+            }
+            if (p < 0) return;
+
+            int manque = demande[p] - offre[p];
+            int meilleurT = -1, meilleureSalle = -1;
+            for (int t = 0; t < NB_SLOTS; t++) {
+                if (salleDe[p * NB_SLOTS + t] >= 0) continue;
+                if (!(t <= 3 && demandeTot[p]) && !(t >= 1 && demandeTard[p])) continue;
+                int r = salleLibre(t, manque);
+                if (r < 0) continue;
+                if (meilleurT < 0 || besoinSlot[t] - offreSlot[t] > besoinSlot[meilleurT] - offreSlot[meilleurT]) {
+                    meilleurT = t;
+                    meilleureSalle = r;
+                }
+            }
+            if (meilleurT < 0) {
+                sature[p] = true;
+                continue;
+            }
+            ouvrir(p, meilleurT, meilleureSalle);
+            offre[p] += capSalles[meilleureSalle];
+            offreSlot[meilleurT] += capSalles[meilleureSalle];
+        }
+    }
+
+    // Plus petite salle libre couvrant le besoin, a defaut la plus grande salle libre
+    private int salleLibre(int t, int besoin) {
+        int ajustee = -1, plusGrande = -1;
+        for (int r = 0; r < capSalles.length; r++) {
+            if (presDans[r * NB_SLOTS + t] >= 0) continue;
+            if (capSalles[r] >= besoin && (ajustee < 0 || capSalles[r] < capSalles[ajustee])) ajustee = r;
+            if (plusGrande < 0 || capSalles[r] > capSalles[plusGrande]) plusGrande = r;
+        }
+        return ajustee >= 0 ? ajustee : plusGrande;
+    }
+
+    private void ouvrir(int p, int t, int r) {
+        salleDe[p * NB_SLOTS + t] = r;
+        presDans[r * NB_SLOTS + t] = p;
+    }
+
+    // --- Recherche locale ---
+
+    private void ameliorer() {
+        for (int passe = 0; passe < MAX_PASSES; passe++) {
+            boolean progres = false;
+            for (int i = 0; i < m; i++) {
+                if (comboCourant[i] >= 0 || combos[i].length == 0) continue;
+                for (int c = 0; c < combos[i].length; c++) {
+                    if (placerAvecReparation(i, c, false)) {
+                        progres = true;
+                        break;
+                    }
+                }
+            }
+            for (int i = 0; i < m; i++) {
+                int courant = comboCourant[i];
+                if (courant <= 0) continue;
+                int perm = permCourante[i];
+                retirer(i);
+                boolean mieux = false;
+                for (int c = 0; c < courant && !mieux; c++) mieux = placerAvecReparation(i, c, true);
+                if (mieux) progres = true;
+                else appliquer(i, courant, perm);
+            }
+            if (!progres) return;
+        }
+    }
+
+    // Placement direct, sinon levee d'un unique blocage : ouverture d'une session,
+    // passage dans une salle plus grande, ou echange avec un eleve deja inscrit.
+    // Avec memeCombo, l'eleve deplace garde ses voeux (le cout global ne peut que baisser).
+    private boolean placerAvecReparation(int i, int c, boolean memeCombo) {
+        if (placer(i, c)) return true;
+        int[] combo = combos[i][c];
+        int premier = premierSlot(i);
+        for (int perm = 0; perm < PERMUTATIONS.length; perm++) {
+            int bloqueP = -1, bloqueT = -1, nbBlocages = 0;
+            for (int k = 0; k < NB_PAR_ELEVE && nbBlocages < 2; k++) {
+                int p = combo[k], t = premier + PERMUTATIONS[perm][k];
+                if (!placeLibre(p, t)) {
+                    bloqueP = p;
+                    bloqueT = t;
+                    nbBlocages++;
+                }
+            }
+            if (nbBlocages != 1) continue;
+
+            int r = salleDe[bloqueP * NB_SLOTS + bloqueT];
+            int inscrits = charge[bloqueP * NB_SLOTS + bloqueT];
+            int libre = salleLibre(bloqueT, inscrits + 1);
+            if (libre >= 0 && capSalles[libre] > inscrits) {
+                if (r >= 0) presDans[r * NB_SLOTS + bloqueT] = -1;
+                ouvrir(bloqueP, bloqueT, libre);
+                appliquer(i, c, perm);
+                return true;
+            }
+            if (r >= 0 && echanger(i, c, perm, bloqueP, bloqueT, memeCombo)) return true;
+        }
+        return false;
+    }
+
+    // L'eleve i prend la place d'un inscrit j a la session (p, t), j etant replace ailleurs
+    private boolean echanger(int i, int c, int perm, int p, int t, boolean memeCombo) {
+        for (int j = 0; j < m; j++) {
+            if (j == i || choix[j * NB_SLOTS + t] != p) continue;
+            int comboJ = comboCourant[j], permJ = permCourante[j];
+            retirer(j);
+            appliquer(i, c, perm);
+            if (memeCombo ? placer(j, comboJ) : placerPremier(j)) return true;
+            retirer(i);
+            appliquer(j, comboJ, permJ);
+        }
+        return false;
+    }
+
+    private boolean placerPremier(int i) {
+        for (int c = 0; c < combos[i].length; c++) if (placer(i, c)) return true;
+        return false;
+    }
+
+    // --- Placement d'un eleve ---
+
+    // Cherche la bijection presentations -> slots valides qui laisse le plus de marge
+    private boolean placer(int i, int c) {
+        int[] combo = combos[i][c];
+        int premier = premierSlot(i);
+        int meilleure = -1, meilleureMarge = -1;
+        for (int perm = 0; perm < PERMUTATIONS.length; perm++) {
+            int marge = Integer.MAX_VALUE;
+            for (int k = 0; k < NB_PAR_ELEVE && marge > 0; k++) {
+                int p = combo[k], t = premier + PERMUTATIONS[perm][k];
+                int r = salleDe[p * NB_SLOTS + t];
+                marge = r < 0 ? 0 : Math.min(marge, capSalles[r] - charge[p * NB_SLOTS + t]);
+            }
+            if (marge > meilleureMarge) {
+                meilleureMarge = marge;
+                meilleure = perm;
+            }
+        }
+        if (meilleureMarge <= 0) return false;
+        appliquer(i, c, meilleure);
+        return true;
+    }
+
+    private boolean placeLibre(int p, int t) {
+        int r = salleDe[p * NB_SLOTS + t];
+        return r >= 0 && charge[p * NB_SLOTS + t] < capSalles[r];
+    }
+
+    private void appliquer(int i, int c, int perm) {
+        int[] combo = combos[i][c];
+        int premier = premierSlot(i);
+        for (int k = 0; k < NB_PAR_ELEVE; k++) {
+            int p = combo[k], t = premier + PERMUTATIONS[perm][k];
+            choix[i * NB_SLOTS + t] = p;
+            charge[p * NB_SLOTS + t]++;
+        }
+        comboCourant[i] = c;
+        permCourante[i] = perm;
+    }
+
+    private void retirer(int i) {
+        for (int t = 0; t < NB_SLOTS; t++) {
+            int p = choix[i * NB_SLOTS + t];
+            if (p < 0) continue;
+            charge[p * NB_SLOTS + t]--;
+            choix[i * NB_SLOTS + t] = -1;
+        }
+        comboCourant[i] = -1;
+        permCourante[i] = -1;
+    }
+
+    // Eleves arrivant sur un creneau impair : slots 1 a 4, sinon 0 a 3 (get_valid_slots)
+    private int premierSlot(int i) {
+        int creneau = snapshot.creneau(etudiants[i]);
+        return creneau >= 0 && creneau % 2 == 1 ? 1 : 0;
+    }
+
+    // Jeux de 4 voeux admissibles (voeux 1 et 2 + deux voeux parmi 3, 4, 5), cout croissant
+    private int[][] combinaisons(int e) {
+        List<int[]> result = new ArrayList<>();
+        for (int ecarte = 5; ecarte >= 3; ecarte--) {
+            int[] combo = new int[2 * NB_PAR_ELEVE + 1];
+            int k = 0, tr = 0, fm = 0;
+            boolean valide = true;
+            for (int rang = 1; rang <= AssignmentSnapshot.NB_VOEUX && valide; rang++) {
+                if (rang == ecarte) continue;
+                int p = snapshot.voeu(e, rang);
+                if (p < 0) valide = false;
+                for (int q = 0; q < k && valide; q++) if (combo[q] == p) valide = false;
+                if (!valide) break;
+                if (snapshot.type(p) == TypeActivite.TABLE_RONDE) tr++;
+                if (snapshot.type(p) == TypeActivite.FLASH_METIER) fm++;
+                combo[k] = p;
+                combo[NB_PAR_ELEVE + k] = rang;
+                combo[2 * NB_PAR_ELEVE] += POIDS[rang];
+                k++;
+            }
+            if (valide && tr <= 1 && fm <= 1) result.add(combo);
+        }
+        return result.toArray(new int[0][]);
+    }
+
+    private AssignmentResult resultat() {
+        AssignmentResult result = new AssignmentResult();
+        for (int i = 0; i < m; i++) {
+            int c = comboCourant[i];
+            if (c < 0) {
+                result.ajouterIncomplet();
+                continue;
+            }
+            int[] combo = combos[i][c];
+            int premier = premierSlot(i);
+            for (int k = 0; k < NB_PAR_ELEVE; k++) {
+                int p = combo[k], t = premier + PERMUTATIONS[permCourante[i]][k];
+                result.ajouter(etudiants[i], p, combo[NB_PAR_ELEVE + k], t,
+                        nomsSalles[salleDe[p * NB_SLOTS + t]]);
+            }
+        }
+        return result;
+    }
+
+    private static int[] rempli(int taille) {
+        int[] t = new int[taille];
+        Arrays.fill(t, -1);
+        return t;
+    }
+
+    private static int[][] permutations() {
+        List<int[]> perms = new ArrayList<>();
+        for (int a = 0; a < 4; a++)
+            for (int b = 0; b < 4; b++)
+                for (int c = 0; c < 4; c++)
+                    for (int d = 0; d < 4; d++)
+                        if (a != b && a != c && a != d && b != c && b != d && c != d)
+                            perms.add(new int[]{a, b, c, d});
+        return perms.toArray(new int[0][]);
+    }
+}
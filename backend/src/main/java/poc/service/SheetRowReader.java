@@ -0,0 +1,253 @@
+package poc.service;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Lecture ligne a ligne de la premiere feuille d'un classeur, chaque ligne etant un tableau
+// de textes (cellules absentes = ""). Pour un .xlsx, le XML de la feuille est lu en flux
+// (StAX) : seules les chaines partagees et la ligne courante sont en memoire.
+// Un .xls (limite a 65536 lignes) passe par le modele POI classique.
+public final class SheetRowReader implements Iterator<String[]>, Closeable {
+
+    private static final XMLInputFactory XML = XMLInputFactory.newInstance();
+
+    static {
+        XML.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final DataFormatter fmt = new DataFormatter();
+
+    // .xlsx
+    private Path copie;
+    private OPCPackage pkg;
+    private InputStream feuille;
+    private XMLStreamReader xml;
+    private ReadOnlySharedStringsTable chaines;
+    private StylesTable styles;
+
+    // .xls
+    private Workbook classeur;
+    private Iterator<Row> lignes;
+
+    private String[] suivante;
+    private boolean lue;
+
+    private SheetRowReader() {
+    }
+
+    // Le flux est recopie dans un fichier temporaire : le zip .xlsx est ensuite lu par acces direct
+    public static SheetRowReader ouvrir(InputStream in) throws Exception {
+        InputStream is = FileMagic.prepareToCheckMagic(in);
+        SheetRowReader reader = new SheetRowReader();
+        if (FileMagic.valueOf(is) == FileMagic.OOXML) {
+            reader.copie = Files.createTempFile("import-", ".xlsx");
+            Files.copy(is, reader.copie, StandardCopyOption.REPLACE_EXISTING);
+            reader.ouvrirXlsx(reader.copie.toFile());
+        } else {
+            reader.classeur = WorkbookFactory.create(is);
+            reader.lignes = reader.classeur.getSheetAt(0).iterator();
+        }
+        return reader;
+    }
+
+    public static SheetRowReader ouvrir(File file) throws Exception {
+        if (FileMagic.valueOf(file) != FileMagic.OOXML) {
+            try (InputStream in = Files.newInputStream(file.toPath())) {
+                return ouvrir(in);
+            }
+        }
+        SheetRowReader reader = new SheetRowReader();
+        reader.ouvrirXlsx(file);
+        return reader;
+    }
+
+    private void ouvrirXlsx(File file) throws Exception {
+        try {
+            pkg = OPCPackage.open(file, PackageAccess.READ);
+            XSSFReader xssf = new XSSFReader(pkg);
+            chaines = new ReadOnlySharedStringsTable(pkg);
+            styles = xssf.getStylesTable();
+            Iterator<InputStream> feuilles = xssf.getSheetsData();
+            if (!feuilles.hasNext()) return;
+            feuille = feuilles.next();
+            xml = XML.createXMLStreamReader(feuille);
+        } catch (Exception e) {
+            close();
+            throw e;
+        }
+    }
+
+    // Valeur d'une cellule, "" si la ligne est plus courte
+    public static String cellule(String[] ligne, int index) {
+        return index < ligne.length ? ligne[index] : "";
+    }
+
+    public static boolean estVide(String[] ligne) {
+        for (String c : ligne) if (!c.isEmpty()) return false;
+        return true;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!lue) {
+            suivante = lire();
+            lue = true;
+        }
+        return suivante != null;
+    }
+
+    @Override
+    public String[] next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        lue = false;
+        return suivante;
+    }
+
+    private String[] lire() {
+        if (lignes != null) return lignes.hasNext() ? convertir(lignes.next()) : null;
+        if (xml == null) return null;
+        try {
+            return lireXlsx();
+        } catch (XMLStreamException e) {
+            throw new RuntimeException("Lecture du fichier impossible : " + e.getMessage(), e);
+        }
+    }
+
+    private String[] lireXlsx() throws XMLStreamException {
+        List<String> cellules = null;
+        StringBuilder texte = new StringBuilder();
+        int colonne = -1, style = -1;
+        String type = null;
+        boolean dansValeur = false;
+
+        while (xml.hasNext()) {
+            int evenement = xml.next();
+            if (evenement == XMLStreamConstants.START_ELEMENT) {
+                switch (xml.getLocalName()) {
+                    case "row" -> {
+                        cellules = new ArrayList<>();
+                        colonne = -1;
+                    }
+                    case "c" -> {
+                        String ref = xml.getAttributeValue(null, "r");
+                        colonne = ref != null ? colonne(ref) : colonne + 1;
+                        type = xml.getAttributeValue(null, "t");
+                        String s = xml.getAttributeValue(null, "s");
+                        style = s != null ? Integer.parseInt(s) : -1;
+                        texte.setLength(0);
+                    }
+                    // <v> : valeur, <t> : texte d'une chaine en ligne (<is>)
+                    case "v", "t" -> dansValeur = true;
+                    default -> { }
+                }
+            } else if (evenement == XMLStreamConstants.CHARACTERS || evenement == XMLStreamConstants.CDATA) {
+                if (dansValeur) texte.append(xml.getText());
+            } else if (evenement == XMLStreamConstants.END_ELEMENT) {
+                switch (xml.getLocalName()) {
+                    case "v", "t" -> dansValeur = false;
+                    case "c" -> poser(cellules, colonne, valeur(type, style, texte.toString()));
+                    case "row" -> {
+                        return cellules.toArray(new String[0]);
+                    }
+                    default -> { }
+                }
+            }
+        }
+        return null;
+    }
+
+    private String valeur(String type, int style, String brut) {
+        if (brut.isEmpty()) return "";
+        if (type == null || "n".equals(type)) return nombre(style, brut);
+        return switch (type) {
+            case "s" -> chaines.getItemAt(Integer.parseInt(brut)).getString().trim();
+            case "b" -> "1".equals(brut) ? "TRUE" : "FALSE";
+            default -> brut.trim();
+        };
+    }
+
+    // Meme rendu que DataFormatter.formatCellValue (dates, nombres formates)
+    private String nombre(int style, String brut) {
+        short format = 0;
+        String motif = null;
+        if (styles != null && style >= 0 && style < styles.getNumCellStyles()) {
+            XSSFCellStyle cs = styles.getStyleAt(style);
+            format = cs.getDataFormat();
+            motif = cs.getDataFormatString();
+        }
+        if (motif == null) motif = BuiltinFormats.getBuiltinFormat(format);
+        try {
+            return fmt.formatRawCellContents(Double.parseDouble(brut), format, motif).trim();
+        } catch (NumberFormatException e) {
+            return brut.trim();
+        }
+    }
+
+    private static void poser(List<String> cellules, int colonne, String valeur) {
+        if (cellules == null || colonne < 0) return;
+        while (cellules.size() < colonne) cellules.add("");
+        if (colonne < cellules.size()) cellules.set(colonne, valeur);
+        else cellules.add(valeur);
+    }
+
+    // "AB12" -> 27
+    private static int colonne(String ref) {
+        int c = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            char ch = ref.charAt(i);
+            if (ch < 'A' || ch > 'Z') break;
+            c = c * 26 + (ch - 'A' + 1);
+        }
+        return c - 1;
+    }
+
+    private String[] convertir(Row row) {
+        int nb = Math.max(row.getLastCellNum(), 0);
+        String[] ligne = new String[nb];
+        for (int i = 0; i < nb; i++) {
+            Cell c = row.getCell(i, Row.MissingCellPolicy.RETURN_BLANK_AS_NULL);
+            ligne[i] = c == null ? "" : fmt.formatCellValue(c).trim();
+        }
+        return ligne;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (xml != null) xml.close();
+        } catch (XMLStreamException ignored) {
+        }
+        if (feuille != null) feuille.close();
+        if (pkg != null) pkg.revert();
+        if (classeur != null) classeur.close();
+        if (copie != null) Files.deleteIfExists(copie);
+    }
+}
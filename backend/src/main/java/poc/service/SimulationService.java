@@ -0,0 +1,267 @@
+package poc.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import poc.dto.SimulationRequest;
+
+import java.util.*;
+
+// Simulations "et si" sur les capacites : l'affectation est recalculee en memoire sur un snapshot
+// en cache (eleves, voeux, activites) et comparee au resultat enregistre, sans aucune ecriture.
+// Le recalcul utilise le moteur (et la graine) du calcul enregistre dans calcul_affectation : sans
+// hypothese, la simulation redonne le resultat enregistre et les ecarts ne mesurent que les jauges.
+// Apres une mise a jour incrementale (mode incremental), plus aucun moteur ne redonne les
+// affectations enregistrees : l'origine est traitee comme inconnue, le mode demande s'applique.
+// Le cache est partage en lecture seule par les simulations concurrentes ; il est invalide par
+// les operations qui modifient eleves, voeux, activites ou affectations.
+@Service
+public class SimulationService {
+
+    private static final int MAX_SESSIONS = 10;
+    private static final List<String> MODES = List.of("voeux", "optimal", "loterie", "planning");
+
+    @Autowired private JdbcTemplate jdbc;
+    @Autowired private AssignmentService assignmentService;
+
+    private volatile Etat etat;
+    private long generation;
+
+    // Un mode different de celui du resultat enregistre est refuse : l'ecart melangerait l'effet des
+    // jauges et celui du moteur. Sans calcul enregistre (restauration) ou apres une mise a jour
+    // incrementale, le mode demande s'applique.
+    public Map<String, Object> simuler(SimulationRequest demande) {
+        long debut = System.nanoTime();
+        Etat e = etat();
+        String mode = demande.getMode();
+        if (mode != null && !MODES.contains(mode)) throw new IllegalArgumentException("Mode de simulation inconnu : " + mode);
+        if (e.mode != null) {
+            if (mode != null && !mode.equals(e.mode)) {
+                throw new IllegalArgumentException("Les affectations enregistrees viennent du mode " + e.mode
+                        + " : simulation en mode " + mode + " refusee");
+            }
+            mode = e.mode;
+        } else if (mode == null) {
+            mode = "optimal";
+        }
+
+        int[] capacites = e.snapshot.copieCapacites();
+        if (demande.getCapacites() != null) {
+            demande.getCapacites().forEach((id, places) -> {
+                if (places == null || places < 0) throw new IllegalArgumentException("Capacite invalide pour l'activite " + id);
+                capacites[indice(e, id)] = places;
+            });
+        }
+        if (demande.getSessionsSupplementaires() != null) {
+            demande.getSessionsSupplementaires().forEach((id, sessions) -> {
+                if (sessions == null || sessions < 0 || sessions > MAX_SESSIONS) {
+                    throw new IllegalArgumentException("Nombre de sessions invalide pour l'activite " + id);
+                }
+                capacites[indice(e, id)] *= 1 + sessions;
+            });
+        }
+        AssignmentSnapshot variante = e.snapshot.avecCapacites(capacites);
+
+        // Modes tires au sort : la graine du calcul enregistre, sauf graine demandee ; les graines des
+        // demi-journees en sont derivees comme dans runAssignment (AssignmentEngine.graines)
+        boolean tire = "voeux".equals(mode) || "loterie".equals(mode);
+        long graine = demande.getGraine() != null ? demande.getGraine() : e.graine != null ? e.graine : 0L;
+        AssignmentResult simule = new AssignmentResult();
+        if (tire) {
+            simule = AssignmentEngine.affecter(variante, e.partitions, graine);
+        } else if ("planning".equals(mode)) {
+            List<String> nomsSalles = new ArrayList<>();
+            int[] capSalles = assignmentService.salles(variante, nomsSalles);
+            String[] noms = nomsSalles.toArray(new String[0]);
+            for (int[] partition : e.partitions) simule.ajouterTout(ScheduleEngine.planifier(variante, partition, noms, capSalles));
+        } else {
+            for (int[] partition : e.partitions) simule.ajouterTout(FlowAssignmentEngine.affecter(variante, partition));
+        }
+
+        Bilan actuel = bilan(e, e.snapshot, e.actuel);
+        Bilan apres = bilan(e, variante, simule);
+        Map<String, Object> reponse = new LinkedHashMap<>();
+        reponse.put("mode", mode);
+        reponse.put("modeEnregistre", e.origine);
+        if (tire) reponse.put("graine", Long.toString(graine));
+        reponse.put("actuel", actuel.toMap());
+        reponse.put("simule", apres.toMap());
+        reponse.put("ecarts", ecarts(e, actuel, apres));
+        reponse.put("dureeMs", (System.nanoTime() - debut) / 1_000_000);
+        return reponse;
+    }
+
+    // Le snapshot depend de toutes les tables
+    @EventListener
+    public void donneesModifiees(DonneesModifiees evenement) {
+        invalider();
+    }
+
+    public synchronized void invalider() {
+        generation++;
+        etat = null;
+    }
+
+    private Etat etat() {
+        Etat e = etat;
+        if (e != null) return e;
+        long g;
+        synchronized (this) {
+            if (etat != null) return etat;
+            g = generation;
+        }
+        e = charger();
+        synchronized (this) {
+            if (generation == g && etat == null) etat = e;
+        }
+        return e;
+    }
+
+    private Etat charger() {
+        AssignmentSnapshot snapshot = assignmentService.chargerSnapshot();
+        Map<Long, Integer> etudiants = new HashMap<>();
+        for (int i = 0; i < snapshot.nbEtudiants(); i++) etudiants.put(snapshot.etudiantId(i), i);
+        Map<Long, Integer> activites = new HashMap<>();
+        for (int a = 0; a < snapshot.nbActivites(); a++) activites.put(snapshot.activiteId(a), a);
+
+        // Resultat enregistre ; rang 0 pour une affectation forcee (rang_voeu NULL)
+        AssignmentResult actuel = new AssignmentResult();
+        jdbc.query("SELECT etudiant_id, activite_id, rang_voeu FROM affectation", rs -> {
+            Integer i = etudiants.get(rs.getLong(1));
+            Integer a = activites.get(rs.getLong(2));
+            if (i != null && a != null) actuel.ajouter(i, a, rs.getInt(3));
+        });
+        // Dernier calcul (complet ou incremental), s'il a produit les affectations presentes
+        String[] mode = new String[1];
+        Long[] graine = new Long[1];
+        if (actuel.taille() > 0) {
+            jdbc.query("SELECT mode, graine FROM calcul_affectation ORDER BY id DESC LIMIT 1", rs -> {
+                mode[0] = rs.getString(1);
+                graine[0] = rs.getObject(2, Long.class);
+            });
+        }
+        return new Etat(snapshot, new ArrayList<>(AssignmentService.parDemiJournee(snapshot).values()), activites, actuel,
+                mode[0], graine[0]);
+    }
+
+    private static int indice(Etat e, Long activiteId) {
+        Integer a = e.activites.get(activiteId);
+        if (a == null) throw new IllegalArgumentException("Activite inconnue : " + activiteId);
+        return a;
+    }
+
+    private static Bilan bilan(Etat e, AssignmentSnapshot snapshot, AssignmentResult result) {
+        int n = snapshot.nbEtudiants();
+        int[] places = new int[n];
+        int[] affectes = new int[snapshot.nbActivites()];
+        for (int i = 0; i < result.taille(); i++) {
+            places[result.etudiant(i)]++;
+            affectes[result.activite(i)]++;
+        }
+        int voeux = 0, sansAffectation = 0;
+        for (int i = 0; i < n; i++) {
+            int exprimes = 0;
+            for (int rang = 1; rang <= AssignmentSnapshot.NB_VOEUX; rang++) {
+                if (snapshot.voeu(i, rang) >= 0) exprimes++;
+            }
+            voeux += exprimes;
+            if (exprimes > 0 && places[i] == 0) sansAffectation++;
+        }
+        int[] parRang = new int[AssignmentSnapshot.NB_VOEUX + 1];
+        for (int rang = 1; rang <= AssignmentSnapshot.NB_VOEUX; rang++) parRang[rang] = result.nbParRang(rang);
+        // La jauge vaut pour chaque demi-journee
+        int[] offertes = new int[snapshot.nbActivites()];
+        for (int a = 0; a < offertes.length; a++) offertes[a] = snapshot.capacite(a) * e.partitions.size();
+        return new Bilan(result.taille(), parRang, sansAffectation, voeux > 0 ? result.taille() * 100.0 / voeux : 0,
+                affectes, offertes);
+    }
+
+    private static Map<String, Object> ecarts(Etat e, Bilan avant, Bilan apres) {
+        Map<String, Object> ecarts = new LinkedHashMap<>();
+        ecarts.put("placements", apres.placements - avant.placements);
+        for (int rang = 1; rang <= AssignmentSnapshot.NB_VOEUX; rang++) {
+            ecarts.put("voeu" + rang, apres.parRang[rang] - avant.parRang[rang]);
+        }
+        ecarts.put("sansAffectation", apres.sansAffectation - avant.sansAffectation);
+        ecarts.put("tauxSatisfaction", arrondi(apres.tauxSatisfaction - avant.tauxSatisfaction));
+        Map<Long, Map<String, Object>> activites = new LinkedHashMap<>();
+        for (int a = 0; a < avant.affectes.length; a++) {
+            int delta = apres.affectes[a] - avant.affectes[a];
+            int places = apres.offertes[a] - avant.offertes[a];
+            if (delta == 0 && places == 0) continue;
+            activites.put(e.snapshot.activiteId(a), Map.of(
+                    "capacite", places,
+                    "affectes", delta,
+                    "tauxRemplissage", arrondi(apres.taux(a) - avant.taux(a))));
+        }
+        ecarts.put("activites", activites);
+        return ecarts;
+    }
+
+    private static double arrondi(double v) {
+        return Math.round(v * 100) / 100.0;
+    }
+
+    // Cache immuable une fois construit
+    private static final class Etat {
+        final AssignmentSnapshot snapshot;
+        final List<int[]> partitions;
+        final Map<Long, Integer> activites;
+        final AssignmentResult actuel;
+        // Dernier calcul enregistre (incremental compris), null si aucun
+        final String origine;
+        // Moteur et graine qui redonnent le resultat enregistre, null si inconnus
+        final String mode;
+        final Long graine;
+
+        Etat(AssignmentSnapshot snapshot, List<int[]> partitions, Map<Long, Integer> activites, AssignmentResult actuel,
+             String origine, Long graine) {
+            this.snapshot = snapshot;
+            this.partitions = partitions;
+            this.activites = activites;
+            this.actuel = actuel;
+            this.origine = origine;
+            boolean retouche = IncrementalAssignmentService.MODE.equals(origine);
+            this.mode = retouche ? null : origine;
+            this.graine = retouche ? null : graine;
+        }
+    }
+
+    private static final class Bilan {
+        final int placements;
+        final int[] parRang;
+        final int sansAffectation;
+        final double tauxSatisfaction;
+        final int[] affectes;
+        final int[] offertes;
+
+        Bilan(int placements, int[] parRang, int sansAffectation, double tauxSatisfaction, int[] affectes, int[] offertes) {
+            this.placements = placements;
+            this.parRang = parRang;
+            this.sansAffectation = sansAffectation;
+            this.tauxSatisfaction = tauxSatisfaction;
+            this.affectes = affectes;
+            this.offertes = offertes;
+        }
+
+        double taux(int a) {
+            return offertes[a] > 0 ? affectes[a] * 100.0 / offertes[a] : 0;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("placements", placements);
+            for (int rang = 1; rang <= AssignmentSnapshot.NB_VOEUX; rang++) m.put("voeu" + rang, parRang[rang]);
+            m.put("sansAffectation", sansAffectation);
+            m.put("tauxSatisfaction", arrondi(tauxSatisfaction));
+            int offertesTotal = 0, affectesTotal = 0;
+            for (int a = 0; a < affectes.length; a++) {
+                offertesTotal += offertes[a];
+                affectesTotal += affectes[a];
+            }
+            m.put("tauxRemplissage", offertesTotal > 0 ? arrondi(affectesTotal * 100.0 / offertesTotal) : 0);
+            return m;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package poc.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// Format binaire des instantanes de l'evenement (version 1) :
+//   "FESUPSNP" | version (short) | date de creation (long, epoch ms)
+//   sections : tag (byte) | longueur du corps (int) | corps
+//     'D' dictionnaire : nb chaines, puis chaque chaine (longueur + UTF-8)
+//     'T' table : nom, nb colonnes, (nom, type 'N' nombre / 'S' chaine) par colonne, nb lignes, cellules
+//   fin : 'E' | CRC32 de tous les corps de section (int)
+// Entiers en varint ; une cellule vaut 0 pour NULL, sinon 1 + zigzag(nombre) ou 1 + indice dans le dictionnaire.
+// Les sections de tag inconnu sont sautees a la lecture.
+final class SnapshotFile {
+
+    static final short VERSION = 1;
+    private static final byte[] MAGIC = "FESUPSNP".getBytes(StandardCharsets.US_ASCII);
+    private static final byte DICTIONNAIRE = 'D';
+    private static final byte TABLE = 'T';
+    private static final byte FIN = 'E';
+
+    private SnapshotFile() {
+    }
+
+    static final class Table {
+        final String nom;
+        final String[] colonnes;
+        // 'N' (nombre, lu en Long) ou 'S' (chaine)
+        final char[] types;
+        final List<Object[]> lignes;
+
+        Table(String nom, String[] colonnes, char[] types, List<Object[]> lignes) {
+            this.nom = nom;
+            this.colonnes = colonnes;
+            this.types = types;
+            this.lignes = lignes;
+        }
+    }
+
+    static void ecrire(Path fichier, long creeLe, List<Table> tables) throws IOException {
+        // Dictionnaire : chaque chaine distincte une seule fois
+        Map<String, Integer> indices = new HashMap<>();
+        List<String> chaines = new ArrayList<>();
+        for (Table t : tables) {
+            for (Object[] ligne : t.lignes) {
+                for (int c = 0; c < t.types.length; c++) {
+                    if (t.types[c] == 'S' && ligne[c] != null && indices.putIfAbsent((String) ligne[c], chaines.size()) == null) {
+                        chaines.add((String) ligne[c]);
+                    }
+                }
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer entete = ByteBuffer.allocate(MAGIC.length + 2 + 8);
+            entete.put(MAGIC).putShort(VERSION).putLong(creeLe).flip();
+            ecrireTout(canal, entete);
+
+            Corps corps = new Corps();
+            corps.varint(chaines.size());
+            for (String s : chaines) corps.chaine(s);
+            section(canal, DICTIONNAIRE, corps, crc);
+
+            for (Table t : tables) {
+                corps.vider();
+                corps.chaine(t.nom);
+                corps.varint(t.colonnes.length);
+                for (int c = 0; c < t.colonnes.length; c++) {
+                    corps.chaine(t.colonnes[c]);
+                    corps.octet((byte) t.types[c]);
+                }
+                corps.varint(t.lignes.size());
+                for (Object[] ligne : t.lignes) {
+                    for (int c = 0; c < t.types.length; c++) {
+                        Object v = ligne[c];
+                        if (v == null) corps.varint(0);
+                        else if (t.types[c] == 'S') corps.varint(1L + indices.get((String) v));
+                        else corps.varint(1 + zigzag(((Number) v).longValue()));
+                    }
+                }
+                section(canal, TABLE, corps, crc);
+            }
+
+            ByteBuffer fin = ByteBuffer.allocate(5);
+            fin.put(FIN).putInt((int) crc.getValue()).flip();
+            ecrireTout(canal, fin);
+            canal.force(true);
+        }
+    }
+
+    static List<Table> lire(Path fichier) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            byte[] magic = new byte[MAGIC.length];
+            if (buf.remaining() < MAGIC.length + 10) throw new IOException("Instantane tronque");
+            buf.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) throw new IOException("Fichier d'instantane invalide");
+            short version = buf.getShort();
+            if (version > VERSION) throw new IOException("Version d'instantane non supportee : " + version);
+            buf.getLong(); // date de creation
+
+            CRC32 crc = new CRC32();
+            String[] dictionnaire = new String[0];
+            List<Table> tables = new ArrayList<>();
+            while (true) {
+                if (!buf.hasRemaining()) throw new IOException("Instantane tronque");
+                byte tag = buf.get();
+                if (tag == FIN) {
+                    if (buf.remaining() < 4 || buf.getInt() != (int) crc.getValue()) throw new IOException("Instantane corrompu (CRC)");
+                    return tables;
+                }
+                int longueur = buf.getInt();
+                if (longueur < 0 || longueur > buf.remaining()) throw new IOException("Instantane tronque");
+                ByteBuffer corps = buf.slice(buf.position(), longueur);
+                buf.position(buf.position() + longueur);
+                crc.update(corps.duplicate());
+
+                if (tag == DICTIONNAIRE) {
+                    dictionnaire = new String[(int) varint(corps)];
+                    for (int i = 0; i < dictionnaire.length; i++) dictionnaire[i] = chaine(corps);
+                } else if (tag == TABLE) {
+                    tables.add(table(corps, dictionnaire));
+                }
+            }
+        }
+    }
+
+    private static Table table(ByteBuffer corps, String[] dictionnaire) throws IOException {
+        String nom = chaine(corps);
+        int nbColonnes = (int) varint(corps);
+        String[] colonnes = new String[nbColonnes];
+        char[] types = new char[nbColonnes];
+        for (int c = 0; c < nbColonnes; c++) {
+            colonnes[c] = chaine(corps);
+            types[c] = (char) corps.get();
+        }
+        long nbLignes = varint(corps);
+        if (nbLignes > corps.remaining()) throw new IOException("Instantane tronque");
+        List<Object[]> lignes = new ArrayList<>((int) nbLignes);
+        for (int i = 0; i < nbLignes; i++) {
+            Object[] ligne = new Object[nbColonnes];
+            for (int c = 0; c < nbColonnes; c++) {
+                long code = varint(corps);
+                if (code == 0) continue;
+                if (types[c] == 'S') {
+                    if (code - 1 >= dictionnaire.length) throw new IOException("Chaine hors dictionnaire dans " + nom);
+                    ligne[c] = dictionnaire[(int) (code - 1)];
+                } else {
+                    ligne[c] = unzigzag(code - 1);
+                }
+            }
+            lignes.add(ligne);
+        }
+        return new Table(nom, colonnes, types, lignes);
+    }
+
+    private static void section(FileChannel canal, byte tag, Corps corps, CRC32 crc) throws IOException {
+        ByteBuffer contenu = corps.contenu();
+        crc.update(contenu.duplicate());
+        ByteBuffer entete = ByteBuffer.allocate(5);
+        entete.put(tag).putInt(contenu.remaining()).flip();
+        ByteBuffer[] morceaux = {entete, contenu};
+        while (entete.hasRemaining() || contenu.hasRemaining()) canal.write(morceaux);
+    }
+
+    private static void ecrireTout(FileChannel canal, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) canal.write(buf);
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static long varint(ByteBuffer buf) throws IOException {
+        long v = 0;
+        for (int decalage = 0; decalage < 64; decalage += 7) {
+            if (!buf.hasRemaining()) throw new IOException("Instantane tronque");
+            byte b = buf.get();
+            v |= (long) (b & 0x7F) << decalage;
+            if (b >= 0) return v;
+        }
+        throw new IOException("Varint invalide");
+    }
+
+    private static String chaine(ByteBuffer buf) throws IOException {
+        int n = (int) varint(buf);
+        if (n < 0 || n > buf.remaining()) throw new IOException("Instantane tronque");
+        byte[] octets = new byte[n];
+        buf.get(octets);
+        return new String(octets, StandardCharsets.UTF_8);
+    }
+
+    // Corps de section en memoire, agrandi a la demande
+    private static final class Corps {
+        private ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+
+        void vider() {
+            buf.clear();
+        }
+
+        void octet(byte b) {
+            place(1);
+            buf.put(b);
+        }
+
+        void varint(long v) {
+            place(10);
+            while ((v & ~0x7FL) != 0) {
+                buf.put((byte) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            buf.put((byte) v);
+        }
+
+        void chaine(String s) {
+            byte[] octets = s.getBytes(StandardCharsets.UTF_8);
+            varint(octets.length);
+            place(octets.length);
+            buf.put(octets);
+        }
+
+        ByteBuffer contenu() {
+            return buf.duplicate().flip();
+        }
+
+        private void place(int n) {
+            if (buf.remaining() >= n) return;
+            ByteBuffer plus = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + n));
+            buf.flip();
+            plus.put(buf);
+            buf = plus;
+        }
+    }
+}
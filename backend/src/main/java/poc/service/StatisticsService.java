@@ -1,59 +1,286 @@
 package poc.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import poc.model.*;
-import poc.repository.*;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+// Statistiques des tableaux de bord : quelques agregats SQL groupes remplissent des compteurs en
+// memoire, ensuite tenus a jour par les ecritures de voeux (voeuxEnregistres). Les lectures ne
+// touchent plus la base. Les operations d'admin qui modifient les eleves ou les affectations en
+// masse (imports, suppressions, affectation) invalident la partie concernee, rechargee a la demande.
 @Service
 public class StatisticsService {
 
-    @Autowired
-    private EtudiantRepository etudiantRepository;
-    @Autowired
-    private ActiviteRepository activiteRepository;
-    @Autowired
-    private VoeuRepository voeuRepository;
-    @Autowired
-    private AffectationRepository affectationRepository;
+    // Cle des eleves sans lycee (ConcurrentHashMap refuse les cles null)
+    private static final long SANS_LYCEE = -1L;
+
+    @Autowired private JdbcTemplate jdbc;
+    @Autowired private ReferenceDataCache referenceDataCache;
+    @Autowired private PipelineMetrics pipelineMetrics;
+
+    private volatile Eleves eleves;
+    private volatile Affectations affectations;
+    private long generationEleves;
+    private long generationAffectations;
 
     public Map<String, Object> getGlobalStatistics() {
+        Eleves el = eleves();
+        Affectations af = affectations();
         Map<String, Object> stats = new HashMap<>();
 
-        long totalEtudiants = etudiantRepository.count();
+        long totalEtudiants = el.total.get();
         stats.put("totalEtudiants", totalEtudiants);
-        stats.put("totalActivites", activiteRepository.count());
-        stats.put("totalVoeux", voeuRepository.count());
-        stats.put("totalAffectations", affectationRepository.count());
-
-        List<Etudiant> etudiants = etudiantRepository.findAll();
-        stats.put("etudiantsParLycee", etudiants.stream()
-                .filter(e -> e.getLycee() != null)
-                .collect(Collectors.groupingBy(e -> e.getLycee().getNom(), Collectors.counting())));
-        stats.put("etudiantsParSerie", etudiants.stream()
-                .filter(e -> e.getSerieBac() != null)
-                .collect(Collectors.groupingBy(Etudiant::getSerieBac, Collectors.counting())));
-        stats.put("etudiantsParDemiJournee", etudiants.stream()
-                .filter(e -> e.getDemiJournee() != null)
-                .collect(Collectors.groupingBy(Etudiant::getDemiJournee, Collectors.counting())));
+        stats.put("totalActivites", referenceDataCache.activites().size());
+        stats.put("totalVoeux", el.voeux.get());
+        stats.put("totalAffectations", af.total);
+
+        Map<Long, String> nomsLycees = nomsLycees();
+        Map<String, Long> parLycee = new HashMap<>();
+        el.parLycee.forEach((lyceeId, g) -> {
+            if (lyceeId != SANS_LYCEE && g.total.get() > 0) parLycee.merge(nom(nomsLycees, lyceeId), g.total.get(), Long::sum);
+        });
+        stats.put("etudiantsParLycee", parLycee);
+        stats.put("etudiantsParSerie", lire(el.parSerie));
+        stats.put("etudiantsParDemiJournee", lire(el.parDemiJournee));
 
         // Taux de remplissage par activite
         Map<String, Map<String, Object>> taux = new HashMap<>();
-        for (Activite a : activiteRepository.findAll()) {
-            long affectes = affectationRepository.countByActiviteId(a.getId());
+        for (Activite a : referenceDataCache.activites()) {
+            long affectes = af.parActivite.getOrDefault(a.getId(), 0L);
+            int places = a.getNbPlaces() != null ? a.getNbPlaces() : 0;
             taux.put(a.getTitre(), Map.of(
-                    "capacite", a.getNbPlaces(),
+                    "capacite", places,
                     "affectes", affectes,
-                    "tauxRemplissage", a.getNbPlaces() > 0 ? (double) affectes / a.getNbPlaces() * 100 : 0));
+                    "tauxRemplissage", places > 0 ? (double) affectes / places * 100 : 0));
         }
         stats.put("tauxRemplissageActivites", taux);
 
-        long avecAffectation = affectationRepository.countDistinctEtudiants();
-        stats.put("tauxSatisfaction", totalEtudiants > 0 ? (double) avecAffectation / totalEtudiants * 100 : 0);
-
+        stats.put("tauxSatisfaction", totalEtudiants > 0 ? (double) af.etudiants / totalEtudiants * 100 : 0);
         return stats;
     }
+
+    // Avancement de la saisie des voeux, tous lycees confondus
+    public Map<String, Object> getAvancement() {
+        Eleves el = eleves();
+        long total = el.total.get(), filled = el.avecVoeux.get();
+        return Map.of("total", total, "filled", filled,
+                "percent", total > 0 ? (double) filled / total * 100 : 0);
+    }
+
+    // Avancement par lycee, ou par lycee et classe
+    public List<Map<String, Object>> getAvancementParGroupe(boolean parClasse) {
+        Eleves el = eleves();
+        Map<Long, String> nomsLycees = nomsLycees();
+        Map<String, Map<String, Object>> grouped = new HashMap<>();
+        for (Groupe g : (parClasse ? el.parClasse : el.parLycee).values()) {
+            if (g.total.get() == 0) continue;
+            String lycee = g.lyceeId != SANS_LYCEE ? nom(nomsLycees, g.lyceeId) : "Inconnu";
+            String classe = g.classe.isEmpty() ? "Inconnue" : g.classe;
+            Map<String, Object> stat = grouped.computeIfAbsent(parClasse ? lycee + " - " + classe : lycee,
+                    k -> new HashMap<>(Map.of("total", 0L, "filled", 0L, "lycee", lycee)));
+            if (parClasse) stat.put("classe", classe);
+            stat.put("total", (long) stat.get("total") + g.total.get());
+            stat.put("filled", (long) stat.get("filled") + g.avecVoeux.get());
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map<String, Object> stat : grouped.values()) {
+            long total = (long) stat.get("total");
+            long filled = (long) stat.get("filled");
+            stat.put("percent", total > 0 ? (double) filled / total * 100 : 0);
+            result.add(stat);
+        }
+        return result;
+    }
+
+    public Map<String, Object> getStatistiquesLycee(Long lyceeId) {
+        Groupe g = eleves().parLycee.get(lyceeId != null ? lyceeId : SANS_LYCEE);
+        long total = g != null ? g.total.get() : 0;
+        long avecVoeux = g != null ? g.avecVoeux.get() : 0;
+        return Map.of(
+                "totalStudents", total,
+                "studentsWithVoeux", avecVoeux,
+                "studentsWithoutVoeux", total - avecVoeux,
+                "totalVoeux", g != null ? g.voeux.get() : 0,
+                "participationRate", total > 0 ? (avecVoeux * 100.0 / total) : 0);
+    }
+
+    // Appele apres l'ecriture des voeux d'un eleve (anciens -> nouveaux voeux). Sans compteurs
+    // publies, un rechargement est peut-etre en cours : sa lecture a pu preceder la validation, il
+    // est abandonne (generation) et le suivant relira la base. Sous le verrou de la publication,
+    // un chargement publie l'est soit avant cette mise a jour (qui s'y applique), soit jamais.
+    public void voeuxEnregistres(Long lyceeId, String classe, int anciens, int nouveaux) {
+        Eleves el;
+        synchronized (this) {
+            el = eleves;
+            if (el == null) {
+                generationEleves++;
+                return;
+            }
+        }
+        long saisi = (anciens == 0 ? 1 : 0) - (nouveaux == 0 ? 1 : 0);
+        for (Groupe g : List.of(el.groupe(lyceeId, classe), el.lycee(lyceeId), el.tous)) {
+            g.voeux.addAndGet(nouveaux - anciens);
+            g.avecVoeux.addAndGet(saisi);
+        }
+    }
+
+    // Eleves et voeux comptes par lycee ; affectations comptees par activite et par eleve
+    @EventListener
+    public void donneesModifiees(DonneesModifiees evenement) {
+        if (evenement.touche(DonneesModifiees.Perimetre.LYCEES, DonneesModifiees.Perimetre.ELEVES,
+                DonneesModifiees.Perimetre.VOEUX, DonneesModifiees.Perimetre.ACTIVITES)) {
+            invaliderEleves();
+        }
+        if (evenement.touche(DonneesModifiees.Perimetre.LYCEES, DonneesModifiees.Perimetre.ELEVES,
+                DonneesModifiees.Perimetre.ACTIVITES, DonneesModifiees.Perimetre.AFFECTATIONS)) {
+            invaliderAffectations();
+        }
+    }
+
+    // Eleves importes ou supprimes
+    public synchronized void invaliderEleves() {
+        generationEleves++;
+        eleves = null;
+    }
+
+    // Affectations recalculees
+    public synchronized void invaliderAffectations() {
+        generationAffectations++;
+        affectations = null;
+    }
+
+    private Eleves eleves() {
+        Eleves el = eleves;
+        if (el != null) return el;
+        long g;
+        synchronized (this) {
+            if (eleves != null) return eleves;
+            g = generationEleves;
+        }
+        long debut = System.nanoTime();
+        el = chargerEleves();
+        pipelineMetrics.requete("statistiques.eleves", System.nanoTime() - debut);
+        synchronized (this) {
+            if (generationEleves == g && eleves == null) eleves = el;
+        }
+        return el;
+    }
+
+    private Affectations affectations() {
+        Affectations af = affectations;
+        if (af != null) return af;
+        long g;
+        synchronized (this) {
+            if (affectations != null) return affectations;
+            g = generationAffectations;
+        }
+        long debut = System.nanoTime();
+        af = chargerAffectations();
+        pipelineMetrics.requete("statistiques.affectations", System.nanoTime() - debut);
+        synchronized (this) {
+            if (generationAffectations == g && affectations == null) affectations = af;
+        }
+        return af;
+    }
+
+    // Une seule requete groupee : eleves et voeux par (lycee, classe, serie, demi-journee)
+    private Eleves chargerEleves() {
+        Eleves el = new Eleves();
+        jdbc.query("SELECT e.lycee_id, e.classe, e.serie_bac, e.demi_journee, COUNT(*), COUNT(v.nb), COALESCE(SUM(v.nb), 0) "
+                + "FROM etudiant e LEFT JOIN (SELECT etudiant_id, COUNT(*) AS nb FROM voeu GROUP BY etudiant_id) v "
+                + "ON v.etudiant_id = e.id GROUP BY e.lycee_id, e.classe, e.serie_bac, e.demi_journee", rs -> {
+            Long lyceeId = rs.getObject(1, Long.class);
+            String serie = rs.getString(3), demiJournee = rs.getString(4);
+            long total = rs.getLong(5), avecVoeux = rs.getLong(6), voeux = rs.getLong(7);
+            for (Groupe g : List.of(el.groupe(lyceeId, rs.getString(2)), el.lycee(lyceeId), el.tous)) {
+                g.total.addAndGet(total);
+                g.avecVoeux.addAndGet(avecVoeux);
+                g.voeux.addAndGet(voeux);
+            }
+            if (serie != null) el.parSerie.computeIfAbsent(serie, k -> new AtomicLong()).addAndGet(total);
+            if (demiJournee != null) el.parDemiJournee.computeIfAbsent(demiJournee, k -> new AtomicLong()).addAndGet(total);
+        });
+        return el;
+    }
+
+    private Affectations chargerAffectations() {
+        Map<Long, Long> parActivite = new HashMap<>();
+        jdbc.query("SELECT activite_id, COUNT(*) FROM affectation GROUP BY activite_id",
+                rs -> { parActivite.put(rs.getLong(1), rs.getLong(2)); });
+        long total = parActivite.values().stream().mapToLong(Long::longValue).sum();
+        Long etudiants = jdbc.queryForObject("SELECT COUNT(DISTINCT etudiant_id) FROM affectation", Long.class);
+        return new Affectations(parActivite, total, etudiants != null ? etudiants : 0);
+    }
+
+    private Map<Long, String> nomsLycees() {
+        Map<Long, String> noms = new HashMap<>();
+        for (Lycee l : referenceDataCache.lycees()) noms.put(l.getId(), l.getNom());
+        return noms;
+    }
+
+    private static String nom(Map<Long, String> nomsLycees, long lyceeId) {
+        return nomsLycees.getOrDefault(lyceeId, "Lycee " + lyceeId);
+    }
+
+    private static Map<String, Long> lire(Map<String, AtomicLong> compteurs) {
+        Map<String, Long> valeurs = new HashMap<>();
+        compteurs.forEach((k, v) -> valeurs.put(k, v.get()));
+        return valeurs;
+    }
+
+    // Compteurs d'un groupe d'eleves : effectif, eleves ayant saisi des voeux, nombre de voeux
+    private static final class Groupe {
+        final long lyceeId;
+        final String classe;
+        final AtomicLong total = new AtomicLong();
+        final AtomicLong avecVoeux = new AtomicLong();
+        final AtomicLong voeux = new AtomicLong();
+
+        Groupe(long lyceeId, String classe) {
+            this.lyceeId = lyceeId;
+            this.classe = classe;
+        }
+    }
+
+    private static final class Eleves {
+        final Groupe tous = new Groupe(SANS_LYCEE, "");
+        final Map<Long, Groupe> parLycee = new ConcurrentHashMap<>();
+        final Map<String, Groupe> parClasse = new ConcurrentHashMap<>();
+        final Map<String, AtomicLong> parSerie = new ConcurrentHashMap<>();
+        final Map<String, AtomicLong> parDemiJournee = new ConcurrentHashMap<>();
+        // Raccourcis pour les lectures O(1)
+        final AtomicLong total = tous.total;
+        final AtomicLong avecVoeux = tous.avecVoeux;
+        final AtomicLong voeux = tous.voeux;
+
+        Groupe lycee(Long lyceeId) {
+            long id = lyceeId != null ? lyceeId : SANS_LYCEE;
+            return parLycee.computeIfAbsent(id, k -> new Groupe(id, ""));
+        }
+
+        Groupe groupe(Long lyceeId, String classe) {
+            long id = lyceeId != null ? lyceeId : SANS_LYCEE;
+            String c = classe != null ? classe : "";
+            return parClasse.computeIfAbsent(id + "|" + c, k -> new Groupe(id, c));
+        }
+    }
+
+    private static final class Affectations {
+        final Map<Long, Long> parActivite;
+        final long total;
+        final long etudiants;
+
+        Affectations(Map<Long, Long> parActivite, long total, long etudiants) {
+            this.parActivite = parActivite;
+            this.total = total;
+            this.etudiants = etudiants;
+        }
+    }
 }
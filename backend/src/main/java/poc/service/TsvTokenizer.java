@@ -0,0 +1,139 @@
+package poc.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Decoupage d'un fichier separe par tabulations sans copie : la ligne courante reste dans le
+// tampon d'octets et chaque champ n'est qu'un couple (debut, fin). Les String ne sont creees
+// qu'a la demande (texte), les codes et nombres se lisent directement dans les octets.
+final class TsvTokenizer {
+
+    private final InputStream in;
+    private Charset charset;
+    private byte[] buf = new byte[1 << 16];
+    private int debut, fin;
+    private boolean eof;
+
+    // Bornes des champs de la ligne courante : [2i] = debut, [2i + 1] = fin
+    private int[] bornes = new int[32];
+    private int nbChamps;
+    private long numeroLigne;
+
+    TsvTokenizer(InputStream in, Charset charset) {
+        this.in = in;
+        this.charset = charset;
+    }
+
+    boolean ligneSuivante() throws IOException {
+        while (true) {
+            for (int i = debut; i < fin; i++) {
+                if (buf[i] == '\n') {
+                    decouper(debut, i);
+                    debut = i + 1;
+                    return true;
+                }
+            }
+            if (eof) {
+                if (debut == fin) return false;
+                decouper(debut, fin);
+                debut = fin;
+                return true;
+            }
+            remplir();
+        }
+    }
+
+    private void remplir() throws IOException {
+        if (debut > 0) {
+            System.arraycopy(buf, debut, buf, 0, fin - debut);
+            fin -= debut;
+            debut = 0;
+        }
+        if (fin == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+        int n = in.read(buf, fin, buf.length - fin);
+        if (n < 0) eof = true;
+        else fin += n;
+    }
+
+    private void decouper(int d, int f) {
+        if (f > d && buf[f - 1] == '\r') f--;
+        // BOM UTF-8 en tete de fichier : le fichier n'est pas en ISO-8859-1
+        if (numeroLigne == 0 && f - d >= 3 && buf[d] == (byte) 0xEF && buf[d + 1] == (byte) 0xBB && buf[d + 2] == (byte) 0xBF) {
+            d += 3;
+            charset = StandardCharsets.UTF_8;
+        }
+        numeroLigne++;
+        nbChamps = 0;
+        int champ = d;
+        for (int i = d; i < f; i++) {
+            if (buf[i] == '\t') {
+                borne(champ, i);
+                champ = i + 1;
+            }
+        }
+        borne(champ, f);
+    }
+
+    private void borne(int d, int f) {
+        if (2 * nbChamps + 2 > bornes.length) bornes = Arrays.copyOf(bornes, bornes.length * 2);
+        // Espaces de debut et de fin ignores
+        while (d < f && buf[d] == ' ') d++;
+        while (f > d && buf[f - 1] == ' ') f--;
+        bornes[2 * nbChamps] = d;
+        bornes[2 * nbChamps + 1] = f;
+        nbChamps++;
+    }
+
+    long numeroLigne() {
+        return numeroLigne;
+    }
+
+    int nbChamps() {
+        return nbChamps;
+    }
+
+    boolean estVide(int champ) {
+        return champ >= nbChamps || bornes[2 * champ] == bornes[2 * champ + 1];
+    }
+
+    String texte(int champ) {
+        if (champ >= nbChamps) return "";
+        int d = bornes[2 * champ];
+        return new String(buf, d, bornes[2 * champ + 1] - d, charset);
+    }
+
+    // Prefixe ASCII, sans tenir compte de la casse
+    boolean commencePar(int champ, String prefixe) {
+        if (champ >= nbChamps) return false;
+        int d = bornes[2 * champ];
+        if (bornes[2 * champ + 1] - d < prefixe.length()) return false;
+        for (int i = 0; i < prefixe.length(); i++) {
+            if (Character.toLowerCase((char) buf[d + i]) != Character.toLowerCase(prefixe.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    // Groupes de chiffres du champ ("26/03/2026" -> 26, 3, 2026 ; "Conf16" -> 16), -1 si absents
+    int nombres(int champ, int[] sortie) {
+        if (champ >= nbChamps) return 0;
+        int n = 0, valeur = -1;
+        for (int i = bornes[2 * champ]; i < bornes[2 * champ + 1]; i++) {
+            byte b = buf[i];
+            if (b >= '0' && b <= '9') {
+                valeur = (valeur < 0 ? 0 : valeur * 10) + (b - '0');
+            } else if (valeur >= 0) {
+                if (n < sortie.length) sortie[n] = valeur;
+                n++;
+                valeur = -1;
+            }
+        }
+        if (valeur >= 0) {
+            if (n < sortie.length) sortie[n] = valeur;
+            n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,213 @@
+package poc.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+import poc.dto.ImportReport;
+import poc.model.Activite;
+import poc.model.TypeActivite;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// Import du fichier de voeux (Eleves_Voeux.csv, separe par tabulations) : les eleves passent par
+// le lot de BulkImportService, rapproches des eleves existants par leur INE, les voeux sont gardes
+// en memoire (5 ids par INE) puis remplaces par lots JDBC une fois les eleves ecrits. Les codes ConfN / TRN / FMN designent la N-ieme
+// activite du type, dans l'ordre des ids (ordre de creation par DataInitializer).
+@Service
+public class VoeuImportService {
+
+    private static final String[] PREFIXES = {"Conf", "TR", "FM"};
+    private static final TypeActivite[] TYPES =
+            {TypeActivite.CONFERENCE, TypeActivite.TABLE_RONDE, TypeActivite.FLASH_METIER};
+
+    @Autowired private BulkImportService bulkImportService;
+    @Autowired private IncrementalAssignmentService incrementalAssignmentService;
+    @Autowired private ReferenceDataCache referenceDataCache;
+    @Autowired private JdbcTemplate jdbc;
+
+    @Value("${fesup.import.batch-size:500}")
+    private int tailleLot;
+
+    // Premier jour du forum (jj/mm/aaaa) : creneau 0 a 3 ce jour-la, 4 a 7 le lendemain
+    @Value("${fesup.voeux.premier-jour:26/03/2026}")
+    private String premierJour;
+
+    @Transactional
+    public ImportReport importerVoeux(MultipartFile file) throws IOException {
+        String filename = file.getOriginalFilename();
+        if (filename == null || (!filename.endsWith(".csv") && !filename.endsWith(".tsv"))) {
+            throw new RuntimeException("Format non supporte (attendu : .csv separe par tabulations)");
+        }
+        try (InputStream in = file.getInputStream()) {
+            return importerVoeux(in, filename);
+        }
+    }
+
+    @Transactional
+    public ImportReport importerVoeux(InputStream in, String fichier) throws IOException {
+        // Export Excel/Windows : ISO-8859-1, sauf BOM UTF-8 detecte par le tokenizer
+        TsvTokenizer tsv = new TsvTokenizer(in, StandardCharsets.ISO_8859_1);
+        BulkImportService.Lot lot = bulkImportService.nouveauLot(BulkImportService.VOEUX, fichier, true);
+        if (!tsv.ligneSuivante()) return lot.terminer();
+
+        Colonnes col = new Colonnes(tsv);
+        long[][] activites = activitesParType();
+        int[] jour0 = premierJour();
+
+        // INE -> 5 activites, dans l'ordre des priorites (la derniere ligne d'un INE l'emporte)
+        Map<String, long[]> voeux = new LinkedHashMap<>();
+        TypeActivite[] types = new TypeActivite[5];
+        int[] nombres = new int[3];
+
+        while (tsv.ligneSuivante()) {
+            if (tsv.nbChamps() <= 1 && tsv.estVide(0)) continue;
+            long ligne = tsv.numeroLigne();
+            if (tsv.estVide(col.ine)) {
+                lot.rejeter("ine-manquant", "Ligne " + ligne + " : ID National manquant");
+                continue;
+            }
+
+            long[] ids = new long[5];
+            String erreur = null;
+            String categorie = "voeu-inconnu";
+            for (int p = 0; p < 5 && erreur == null; p++) {
+                int champ = col.voeux[p];
+                int t = typeDuCode(tsv, champ);
+                if (t < 0 || tsv.nombres(champ, nombres) != 1
+                        || nombres[0] < 1 || nombres[0] > activites[t].length) {
+                    erreur = "voeu " + (p + 1) + " inconnu (" + tsv.texte(champ) + ")";
+                } else {
+                    ids[p] = activites[t][nombres[0] - 1];
+                    types[p] = TYPES[t];
+                }
+            }
+            if (erreur == null) {
+                try {
+                    VoeuService.verifierRegle345(Arrays.asList(types));
+                } catch (RuntimeException e) {
+                    erreur = e.getMessage();
+                    categorie = "regle-345";
+                }
+            }
+            if (erreur != null) {
+                lot.rejeter(categorie, "Ligne " + ligne + " : " + erreur);
+                continue;
+            }
+
+            String ine = tsv.texte(col.ine);
+            Integer creneau = creneau(tsv, col, jour0, nombres);
+            String demiJournee = creneau != null ? String.valueOf(creneau / 2 + 1) : null;
+            lot.ajouterParIne(ine, tsv.texte(col.nom), tsv.texte(col.prenom), tsv.texte(col.etablissement),
+                    col.structure >= 0 ? tsv.texte(col.structure) : null, demiJournee, creneau);
+            voeux.put(ine, ids);
+        }
+
+        ImportReport report = lot.terminer();
+        report.setVoeux(ecrireVoeux(voeux));
+        return report;
+    }
+
+    // Remplace les voeux des eleves importes : suppression puis insertion, par lots
+    private int ecrireVoeux(Map<String, long[]> voeux) {
+        Map<String, Long> etudiants = new HashMap<>();
+        jdbc.query("SELECT id, ine FROM etudiant WHERE ine IS NOT NULL",
+                rs -> { etudiants.put(rs.getString(2), rs.getLong(1)); });
+
+        List<Object[]> suppressions = new ArrayList<>();
+        List<Object[]> insertions = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<String, long[]> e : voeux.entrySet()) {
+            Long etudiantId = etudiants.get(e.getKey());
+            if (etudiantId == null) continue;
+            suppressions.add(new Object[]{etudiantId});
+            for (int p = 0; p < 5; p++) insertions.add(new Object[]{etudiantId, e.getValue()[p], p + 1});
+            incrementalAssignmentService.signalerModification(etudiantId);
+
+            if (suppressions.size() >= tailleLot) total += vider(suppressions, insertions);
+        }
+        return total + vider(suppressions, insertions);
+    }
+
+    private int vider(List<Object[]> suppressions, List<Object[]> insertions) {
+        if (suppressions.isEmpty()) return 0;
+        jdbc.batchUpdate("DELETE FROM voeu WHERE etudiant_id = ?", suppressions);
+        jdbc.batchUpdate("INSERT INTO voeu (etudiant_id, activite_id, priorite) VALUES (?, ?, ?)", insertions);
+        int n = insertions.size();
+        suppressions.clear();
+        insertions.clear();
+        return n;
+    }
+
+    private int[] premierJour() {
+        String[] parties = premierJour.trim().split("/");
+        try {
+            return new int[]{Integer.parseInt(parties[0]), Integer.parseInt(parties[1]), Integer.parseInt(parties[2])};
+        } catch (RuntimeException e) {
+            throw new RuntimeException("fesup.voeux.premier-jour invalide : " + premierJour);
+        }
+    }
+
+    // [type][rang - 1] -> id d'activite
+    private long[][] activitesParType() {
+        List<List<Long>> parType = List.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        for (Activite a : referenceDataCache.activites()) {
+            int t = Arrays.asList(TYPES).indexOf(a.getType());
+            if (t >= 0) parType.get(t).add(a.getId());
+        }
+        long[][] ids = new long[3][];
+        for (int t = 0; t < 3; t++) ids[t] = parType.get(t).stream().mapToLong(Long::longValue).toArray();
+        return ids;
+    }
+
+    private static int typeDuCode(TsvTokenizer tsv, int champ) {
+        for (int t = 0; t < PREFIXES.length; t++) {
+            if (tsv.commencePar(champ, PREFIXES[t])) return t;
+        }
+        return -1;
+    }
+
+    // Creneau d'arrivee (get_timeslot du module Python) : 2 x demi-journee + vague, la seconde
+    // vague arrivant 45 min apres la premiere (08:30 / 09:15, 13:30 / 14:15). null si illisible.
+    private static Integer creneau(TsvTokenizer tsv, Colonnes col, int[] jour0, int[] nombres) {
+        if (col.date < 0 || col.heure < 0) return null;
+        if (tsv.nombres(col.date, nombres) != 3 || nombres[1] != jour0[1] || nombres[2] != jour0[2]) return null;
+        int jour = nombres[0] - jour0[0];
+        if (jour < 0 || jour > 1) return null;
+        if (tsv.nombres(col.heure, nombres) != 2) return null;
+        int minutes = nombres[0] * 60 + nombres[1];
+        boolean matin = nombres[0] < 12;
+        int vague = minutes >= (matin ? 8 * 60 + 30 : 13 * 60 + 30) + 45 ? 1 : 0;
+        return 4 * jour + (matin ? 0 : 2) + vague;
+    }
+
+    // Positions des colonnes, retrouvees par leur intitule dans l'en-tete
+    private static final class Colonnes {
+        final int etablissement, nom, prenom, date, heure, ine, structure;
+        final int[] voeux = new int[5];
+
+        Colonnes(TsvTokenizer tsv) {
+            List<String> entete = new ArrayList<>();
+            for (int i = 0; i < tsv.nbChamps(); i++) entete.add(tsv.texte(i).toLowerCase());
+            etablissement = requise(entete, "etablissement");
+            nom = requise(entete, "nom de famille");
+            prenom = requise(entete, "prenom");
+            ine = requise(entete, "id national");
+            date = entete.indexOf("date");
+            heure = entete.indexOf("heure");
+            structure = entete.indexOf("lib. structure");
+            for (int p = 0; p < 5; p++) voeux[p] = requise(entete, "voeu " + (p + 1));
+        }
+
+        private static int requise(List<String> entete, String nom) {
+            int i = entete.indexOf(nom);
+            if (i < 0) throw new RuntimeException("Colonne manquante dans le fichier de voeux : " + nom);
+            return i;
+        }
+    }
+}
@@ -1,52 +1,115 @@
 package poc.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import poc.model.Activite;
-import poc.model.Etudiant;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import poc.model.TypeActivite;
-import poc.model.Voeu;
-import poc.repository.ActiviteRepository;
-import poc.repository.EtudiantRepository;
-import poc.repository.VoeuRepository;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
+// Ecriture des voeux d'un eleve en une transaction et deux allers-retours : une lecture (eleve et
+// nombre de voeux existants) puis un MERGE par lot des 5 priorites sur la cle (etudiant_id, priorite).
+// La validation se fait avant tout acces a la base, sur les types du cache du referentiel.
 @Service
 public class VoeuService {
 
+    static final String LIRE_ETUDIANT =
+            "SELECT e.lycee_id, e.classe, (SELECT COUNT(*) FROM voeu v WHERE v.etudiant_id = e.id) FROM etudiant e WHERE e.id = ?";
+    static final String MERGE_VOEU =
+            "MERGE INTO voeu (etudiant_id, priorite, activite_id) KEY (etudiant_id, priorite) VALUES (?, ?, ?)";
+
     @Autowired
-    private VoeuRepository voeuRepository;
+    private JdbcTemplate jdbc;
 
     @Autowired
-    private EtudiantRepository etudiantRepository;
+    private IncrementalAssignmentService incrementalAssignmentService;
 
     @Autowired
-    private ActiviteRepository activiteRepository;
+    private ReferenceDataCache referenceDataCache;
 
-    public void enregistrerVoeux(Long etudiantId, List<Long> activitesIds) {
-        Etudiant etudiant = etudiantRepository.findById(etudiantId)
-                .orElseThrow(() -> new RuntimeException("Étudiant non trouvé"));
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
 
+    @Autowired
+    private SimulationService simulationService;
+
+    @Transactional
+    public void enregistrerVoeux(Long etudiantId, List<Long> activitesIds) {
         if (activitesIds.size() != 5) {
+            pipelineMetrics.voeuxInvalides("nombre");
             throw new RuntimeException("Il faut exactement 5 vœux.");
         }
+        if (new HashSet<>(activitesIds).size() != 5) {
+            pipelineMetrics.voeuxInvalides("doublon");
+            throw new RuntimeException("Une même activité ne peut pas être choisie deux fois.");
+        }
 
-        List<Activite> activites = activiteRepository.findAllById(activitesIds);
-        if (activites.size() != 5) {
-            throw new RuntimeException("Certaines activités n'existent pas.");
+        // Types lus dans le cache du referentiel, sans requete
+        Map<Long, TypeActivite> typesActivites = referenceDataCache.typesActivites();
+        List<TypeActivite> types = new ArrayList<>();
+        for (Long id : activitesIds) {
+            TypeActivite type = typesActivites.get(id);
+            if (type == null) {
+                pipelineMetrics.voeuxInvalides("activite");
+                throw new RuntimeException("Certaines activités n'existent pas.");
+            }
+            types.add(type);
         }
 
-        // Vérification des règles (3-4-5)
+        try {
+            verifierRegle345(types);
+        } catch (RuntimeException e) {
+            pipelineMetrics.voeuxInvalides("regle345");
+            throw e;
+        }
+
+        long debut = System.nanoTime();
+        List<Object[]> etudiant = jdbc.query(LIRE_ETUDIANT,
+                (rs, i) -> new Object[]{rs.getObject(1, Long.class), rs.getString(2), rs.getInt(3)}, etudiantId);
+        pipelineMetrics.requete("voeux.lecture", System.nanoTime() - debut);
+        if (etudiant.isEmpty()) throw new RuntimeException("Étudiant non trouvé");
+        Long lyceeId = (Long) etudiant.get(0)[0];
+        String classe = (String) etudiant.get(0)[1];
+        int anciens = (Integer) etudiant.get(0)[2];
+
+        // Les 5 priorites sont toujours ecrites : le MERGE remplace les anciens voeux sans DELETE
+        List<Object[]> lignes = new ArrayList<>(5);
+        for (int i = 0; i < 5; i++) lignes.add(new Object[]{etudiantId, i + 1, activitesIds.get(i)});
+        debut = System.nanoTime();
+        jdbc.batchUpdate(MERGE_VOEU, lignes);
+        pipelineMetrics.requete("voeux.merge", System.nanoTime() - debut);
+
+        incrementalAssignmentService.signalerModification(etudiantId);
+        // Compteurs des tableaux de bord mis a jour une fois la transaction validee
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                statisticsService.voeuxEnregistres(lyceeId, classe, anciens, 5);
+                simulationService.invalider();
+            }
+        });
+    }
+
+    // Règle 3-4-5, partagée avec l'import du fichier de vœux
+    public static void verifierRegle345(List<TypeActivite> types) {
         // Voeu 1 & 2 doivent être des CONFÉRENCES
-        if (activites.get(0).getType() != TypeActivite.CONFERENCE || activites.get(1).getType() != TypeActivite.CONFERENCE) {
+        if (types.get(0) != TypeActivite.CONFERENCE || types.get(1) != TypeActivite.CONFERENCE) {
             throw new RuntimeException("Les vœux 1 et 2 doivent être des CONFÉRENCES.");
         }
 
         // Vérification des choix 3, 4, 5
-        long nbConf = activites.subList(2, 5).stream().filter(a -> a.getType() == TypeActivite.CONFERENCE).count();
-        long nbTable = activites.subList(2, 5).stream().filter(a -> a.getType() == TypeActivite.TABLE_RONDE).count();
-        long nbFlash = activites.subList(2, 5).stream().filter(a -> a.getType() == TypeActivite.FLASH_METIER).count();
+        long nbConf = types.subList(2, 5).stream().filter(t -> t == TypeActivite.CONFERENCE).count();
+        long nbTable = types.subList(2, 5).stream().filter(t -> t == TypeActivite.TABLE_RONDE).count();
+        long nbFlash = types.subList(2, 5).stream().filter(t -> t == TypeActivite.FLASH_METIER).count();
 
         boolean valid = (nbConf == 3) ||
                         (nbConf == 2 && nbFlash == 1) ||
@@ -56,18 +119,5 @@ public class VoeuService {
         if (!valid) {
             throw new RuntimeException("La combinaison des vœux 3, 4 et 5 est invalide (Règle 3-4-5).");
         }
-
-        // Sauvegarde
-        // On supprime les anciens vœux pour cet étudiant (mode remplacement)
-        List<Voeu> anciensVoeux = voeuRepository.findByEtudiantId(etudiantId);
-        voeuRepository.deleteAll(anciensVoeux);
-
-        for (int i = 0; i < 5; i++) {
-            Voeu voeu = new Voeu();
-            voeu.setEtudiant(etudiant);
-            voeu.setActivite(activites.get(i));
-            voeu.setPriorite(i + 1);
-            voeuRepository.save(voeu);
-        }
     }
 }
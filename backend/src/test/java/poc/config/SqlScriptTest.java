@@ -0,0 +1,33 @@
+package poc.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlScriptTest {
+
+    @Test
+    void testInstructions_PointVirguleDansUneChaineEtCommentaires() {
+        String script = "-- entete ; avec point-virgule\n"
+                + "MERGE INTO etudiant (nom) KEY (nom) SELECT 'DUPONT; Jean' FROM lycee l WHERE l.nom LIKE '%Fauriel%';\n"
+                + "/* bloc ; */ INSERT INTO lycee (nom) VALUES ('L''Astree');\n"
+                + "  ;\n";
+        List<String> instructions = SqlScript.instructions(script);
+
+        assertEquals(2, instructions.size());
+        assertTrue(instructions.get(0).contains("'DUPONT; Jean'"));
+        assertTrue(instructions.get(1).endsWith("VALUES ('L''Astree')"));
+    }
+
+    @Test
+    void testParametrer_MemeFormePourDesValeursDifferentes() {
+        SqlScript.Parametree a = SqlScript.parametrer("INSERT INTO lycee (nom, \"code\") VALUES ('L''Astree', 3)");
+        SqlScript.Parametree b = SqlScript.parametrer("INSERT INTO lycee (nom, \"code\") VALUES ('Fauriel', 3)");
+
+        assertEquals("INSERT INTO lycee (nom, \"code\") VALUES (CAST(? AS VARCHAR), 3)", a.sql);
+        assertEquals(a.sql, b.sql);
+        assertArrayEquals(new Object[]{"L'Astree"}, a.valeurs);
+    }
+}
@@ -0,0 +1,59 @@
+package poc.security;
+
+import org.junit.jupiter.api.Test;
+import poc.service.DonneesModifiees;
+import poc.service.DonneesModifiees.Perimetre;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    @Test
+    void testExpiration_JetonEtTtl() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 1_000);
+        JwtPrincipal eleve = new JwtPrincipal("FAU0001", "ETUDIANT", 1L);
+
+        cache.put("a", eleve, 500, 0);    // expire avec le jeton
+        cache.put("b", eleve, 5_000, 0);  // expire avec le TTL
+
+        assertSame(eleve, cache.get("a", 499));
+        assertNull(cache.get("a", 500));
+        assertSame(eleve, cache.get("b", 999));
+        assertNull(cache.get("b", 1_000));
+    }
+
+    @Test
+    void testTailleBornee() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2, 1_000);
+        JwtPrincipal admin = new JwtPrincipal("admin", "SUPER_ADMIN", null);
+
+        cache.put("a", admin, 100, 0);
+        cache.put("b", admin, 10_000, 0);
+        cache.put("c", admin, 10_000, 50);   // plein, rien d'expire : pas mis en cache
+        assertNull(cache.get("c", 50));
+
+        cache.put("d", admin, 10_000, 200);  // "a" a expire et laisse sa place
+        assertSame(admin, cache.get("d", 200));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testDonneesModifiees_VideSeulementPourElevesOuLycees() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 1_000);
+        cache.put("a", new JwtPrincipal("FAU0001", "ETUDIANT", 1L), 5_000, 0);
+
+        cache.donneesModifiees(new DonneesModifiees(this, Perimetre.ACTIVITES, Perimetre.AFFECTATIONS));
+        assertEquals(1, cache.size());
+
+        cache.donneesModifiees(new DonneesModifiees(this, Perimetre.LYCEES));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testEmpreinte_StableEtSansLeJeton() {
+        String empreinte = VerifiedTokenCache.empreinte("header.payload.signature");
+        assertEquals(empreinte, VerifiedTokenCache.empreinte("header.payload.signature"));
+        assertNotEquals(empreinte, VerifiedTokenCache.empreinte("header.payload.signaturf"));
+        assertFalse(empreinte.contains("payload"));
+    }
+}
@@ -0,0 +1,26 @@
+package poc.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EtudiantIdentityIndexTest {
+
+    @Test
+    void testChercher_MatriculeEtIne() {
+        EtudiantIdentityIndex.Table.Builder builder = new EtudiantIdentityIndex.Table.Builder();
+        for (int i = 0; i < 5_000; i++) builder.ajouter("FAU" + i, i);
+        builder.ajouter("120890177FA", 42);
+        builder.ajouter("FAU7", 99); // cle deja presente : le premier id reste
+        EtudiantIdentityIndex.Table table = builder.build();
+
+        for (int i = 0; i < 5_000; i++) assertEquals(i, table.chercher("FAU" + i));
+        assertEquals(42, table.chercher("120890177FA"));
+        // Comparaison exacte, comme les anciennes requetes
+        assertEquals(-1, table.chercher("120890177fa"));
+        assertEquals(7, table.chercher("FAU7"));
+        assertEquals(-1, table.chercher("INCONNU"));
+        // Facteur de charge <= 0.5
+        assertTrue(table.capacite() >= 2 * 5_001);
+    }
+}
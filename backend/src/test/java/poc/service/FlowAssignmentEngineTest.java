@@ -0,0 +1,63 @@
+package poc.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlowAssignmentEngineTest {
+
+    @Test
+    void testAffecter_PrefereLesPremiersVoeux() {
+        // Activite 1 : une seule place, voeu 1 de l'eleve 0 et voeu 3 de l'eleve 1. Les deux solutions
+        // placent 4 presentations ; seule celle qui la donne a l'eleve 0 evite la penalite du voeu 3.
+        AssignmentSnapshot.Builder builder = new AssignmentSnapshot.Builder();
+        builder.activite(1, 1);
+        builder.activite(2, 1);
+        builder.activite(3, 5);
+        builder.etudiant(0);
+        builder.etudiant(1);
+        builder.voeu(0, 1, 1);
+        builder.voeu(0, 3, 2);
+        builder.voeu(1, 2, 1);
+        builder.voeu(1, 3, 2);
+        builder.voeu(1, 1, 3);
+        AssignmentSnapshot snapshot = builder.build();
+
+        AssignmentResult result = FlowAssignmentEngine.affecter(snapshot, new int[]{0, 1});
+
+        assertEquals(4, result.taille());
+        assertEquals(2, result.nbParRang(1));
+        assertEquals(2, result.nbParRang(2));
+        assertEquals(0, result.nbParRang(3));
+    }
+
+    @Test
+    void testAffecter_RespecteCapacitesEtQuatreParEleve() {
+        AssignmentSnapshot.Builder builder = new AssignmentSnapshot.Builder();
+        for (long a = 1; a <= 6; a++) builder.activite(a, 7);
+        int nb = 10;
+        int[] partition = new int[nb];
+        for (int e = 0; e < nb; e++) {
+            builder.etudiant(e);
+            for (int rang = 1; rang <= AssignmentSnapshot.NB_VOEUX; rang++) builder.voeu(e, 1 + (e + rang) % 6, rang);
+            partition[e] = e;
+        }
+        AssignmentSnapshot snapshot = builder.build();
+
+        AssignmentResult result = FlowAssignmentEngine.affecter(snapshot, partition);
+
+        Map<Integer, Integer> parEleve = new HashMap<>();
+        Map<Integer, Integer> parActivite = new HashMap<>();
+        for (int i = 0; i < result.taille(); i++) {
+            parEleve.merge(result.etudiant(i), 1, Integer::sum);
+            parActivite.merge(result.activite(i), 1, Integer::sum);
+        }
+        parEleve.values().forEach(n -> assertTrue(n <= AssignmentSnapshot.NB_PAR_ELEVE));
+        parActivite.forEach((a, n) -> assertTrue(n <= snapshot.capacite(a)));
+        // 6 x 7 = 42 places pour 40 demandes : tout le monde a ses 4 presentations
+        assertEquals(nb * AssignmentSnapshot.NB_PAR_ELEVE, result.taille());
+    }
+}
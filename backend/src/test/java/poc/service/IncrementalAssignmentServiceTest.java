@@ -0,0 +1,121 @@
+package poc.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import poc.dto.AffectationDiff;
+import poc.model.*;
+import poc.repository.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class IncrementalAssignmentServiceTest {
+
+    @Autowired
+    private IncrementalAssignmentService incrementalAssignmentService;
+
+    @Autowired
+    private AssignmentService assignmentService;
+
+    @Autowired
+    private EtudiantRepository etudiantRepository;
+
+    @Autowired
+    private ActiviteRepository activiteRepository;
+
+    @Autowired
+    private VoeuRepository voeuRepository;
+
+    @Autowired
+    private AffectationRepository affectationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        affectationRepository.deleteAll();
+        voeuRepository.deleteAll();
+        etudiantRepository.deleteAll();
+        activiteRepository.deleteAll();
+        incrementalAssignmentService.oublierModifications();
+    }
+
+    @Test
+    void testRunIncremental_ReaffecteUnEleveModifie() {
+        Activite chimie = activite("Chimie", 2);
+        Activite physique = activite("Physique", 2);
+        Etudiant eleve = etudiant("Martin", "M1");
+        voeu(eleve, chimie, 1);
+        assignmentService.runAssignment();
+
+        // L'eleve remplace son voeu : Chimie -> Physique
+        jdbc.update("UPDATE voeu SET activite_id = ? WHERE etudiant_id = ?", physique.getId(), eleve.getId());
+        incrementalAssignmentService.signalerModification(eleve.getId());
+
+        List<AffectationDiff> diffs = incrementalAssignmentService.runIncremental();
+
+        assertEquals(1, diffs.size());
+        assertEquals(List.of(chimie.getId()), diffs.get(0).getActivitesRetirees());
+        assertEquals(List.of(physique.getId()), diffs.get(0).getActivitesAjoutees());
+        assertEquals(List.of(physique.getId()), activitesDe(eleve));
+    }
+
+    @Test
+    void testRunIncremental_PlaceLibereeDonneeAUnEleveEnAttente() {
+        Activite chimie = activite("Chimie", 1);
+        Activite physique = activite("Physique", 1);
+        Etudiant premier = etudiant("Martin", "M1");
+        Etudiant second = etudiant("Durand", "M2");
+        voeu(premier, chimie, 1);
+        voeu(second, chimie, 1);
+        assignmentService.runAssignment();
+
+        // Une seule place : l'eleve place par le tirage la libere en changeant de voeu
+        Etudiant place = activitesDe(premier).isEmpty() ? second : premier;
+        Etudiant enAttente = place == premier ? second : premier;
+        assertTrue(activitesDe(enAttente).isEmpty());
+        jdbc.update("UPDATE voeu SET activite_id = ? WHERE etudiant_id = ?", physique.getId(), place.getId());
+        incrementalAssignmentService.signalerModification(place.getId());
+
+        incrementalAssignmentService.runIncremental();
+
+        assertEquals(List.of(physique.getId()), activitesDe(place));
+        assertEquals(List.of(chimie.getId()), activitesDe(enAttente));
+    }
+
+    private List<Long> activitesDe(Etudiant etudiant) {
+        return jdbc.queryForList("SELECT activite_id FROM affectation WHERE etudiant_id = ?", Long.class, etudiant.getId());
+    }
+
+    private Activite activite(String titre, int places) {
+        Activite activite = new Activite();
+        activite.setTitre(titre);
+        activite.setType(TypeActivite.CONFERENCE);
+        activite.setNbPlaces(places);
+        return activiteRepository.save(activite);
+    }
+
+    private Etudiant etudiant(String nom, String matricule) {
+        Etudiant etudiant = new Etudiant();
+        etudiant.setNom(nom);
+        etudiant.setPrenom("Test");
+        etudiant.setMatriculeCsv(matricule);
+        return etudiantRepository.save(etudiant);
+    }
+
+    private void voeu(Etudiant etudiant, Activite activite, int priorite) {
+        Voeu voeu = new Voeu();
+        voeu.setEtudiant(etudiant);
+        voeu.setActivite(activite);
+        voeu.setPriorite(priorite);
+        voeuRepository.save(voeu);
+    }
+}
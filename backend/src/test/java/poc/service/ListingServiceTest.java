@@ -0,0 +1,25 @@
+package poc.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListingServiceTest {
+
+    @Test
+    void testCurseur_AllerRetour() {
+        String curseur = ListingService.encoderCurseur("voeux", 20_417);
+        assertEquals(20_417, ListingService.decoderCurseur("voeux", curseur));
+    }
+
+    @Test
+    void testCurseur_RefuseAutreListeOuTexteInvalide() {
+        String curseur = ListingService.encoderCurseur("voeux", 12);
+        assertThrows(IllegalArgumentException.class, () -> ListingService.decoderCurseur("etudiants", curseur));
+        assertThrows(IllegalArgumentException.class, () -> ListingService.decoderCurseur("voeux", "pas un curseur"));
+        String nonNumerique = Base64.getUrlEncoder().encodeToString("voeux:abc".getBytes());
+        assertThrows(IllegalArgumentException.class, () -> ListingService.decoderCurseur("voeux", nonNumerique));
+    }
+}
@@ -0,0 +1,81 @@
+package poc.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiSeedLotteryTest {
+
+    private static AssignmentSnapshot snapshot() {
+        AssignmentSnapshot.Builder builder = new AssignmentSnapshot.Builder();
+        for (long a = 1; a <= 4; a++) builder.activite(a, 3);
+        for (long e = 0; e < 12; e++) {
+            builder.etudiant(e, e < 6 ? "1" : "2", null, 1 + e % 3);
+            for (int rang = 1; rang <= AssignmentSnapshot.NB_VOEUX; rang++) builder.voeu(e, 1 + (e + rang) % 4, rang);
+        }
+        return builder.build();
+    }
+
+    @Test
+    void testTirer_MemeGraineMemeResultat() {
+        AssignmentSnapshot snapshot = snapshot();
+        List<int[]> partitions = List.of(new int[]{0, 1, 2, 3, 4, 5}, new int[]{6, 7, 8, 9, 10, 11});
+
+        MultiSeedLottery.Tirage a = MultiSeedLottery.tirer(snapshot, partitions, 20260326L);
+        MultiSeedLottery.Tirage b = MultiSeedLottery.tirer(snapshot, partitions, 20260326L);
+
+        assertEquals(a.result.taille(), b.result.taille());
+        for (int i = 0; i < a.result.taille(); i++) {
+            assertEquals(a.result.etudiant(i), b.result.etudiant(i));
+            assertEquals(a.result.activite(i), b.result.activite(i));
+            assertEquals(a.result.rang(i), b.result.rang(i));
+        }
+        assertEquals(0, a.score.compareTo(b.score));
+    }
+
+    @Test
+    void testAffecter_DemiJourneesTireesAvecLeursPropresGraines() {
+        AssignmentSnapshot snapshot = snapshot();
+        List<int[]> partitions = List.of(new int[]{0, 1, 2, 3, 4, 5}, new int[]{6, 7, 8, 9, 10, 11});
+        long[] graines = AssignmentEngine.graines(20260326L, partitions.size());
+
+        // Chaque demi-journee ne depend que de sa graine : meme resultat calculee a part (en parallele)
+        AssignmentResult sequence = AssignmentEngine.affecter(snapshot, partitions, 20260326L);
+        AssignmentResult parties = new AssignmentResult();
+        for (int i = 0; i < partitions.size(); i++) {
+            parties.ajouterTout(AssignmentEngine.affecter(snapshot, partitions.get(i), graines[i]));
+        }
+
+        assertEquals(sequence.taille(), parties.taille());
+        for (int i = 0; i < sequence.taille(); i++) {
+            assertEquals(sequence.etudiant(i), parties.etudiant(i));
+            assertEquals(sequence.activite(i), parties.activite(i));
+        }
+        assertNotEquals(graines[0], graines[1]);
+    }
+
+    @Test
+    void testTirer_QuatreActivitesParEleveCommeLesAutresModes() {
+        AssignmentSnapshot.Builder builder = new AssignmentSnapshot.Builder();
+        for (long a = 1; a <= 5; a++) builder.activite(a, 10);
+        builder.etudiant(0);
+        for (int rang = 1; rang <= AssignmentSnapshot.NB_VOEUX; rang++) builder.voeu(0, rang, rang);
+
+        MultiSeedLottery.Tirage tirage = MultiSeedLottery.tirer(builder.build(), List.of(new int[]{0}), 1L);
+
+        assertEquals(AssignmentSnapshot.NB_PAR_ELEVE, tirage.result.taille());
+        assertEquals(0, tirage.result.nbParRang(5));
+    }
+
+    @Test
+    void testScore_SansAffectationPuisVoeuxManquesParRang() {
+        MultiSeedLottery.Score unSansAffectation = new MultiSeedLottery.Score(1, new int[]{0, 0, 0, 0, 0, 0}, 0);
+        MultiSeedLottery.Score manqueVoeu1 = new MultiSeedLottery.Score(0, new int[]{0, 1, 0, 0, 0, 0}, 0);
+        MultiSeedLottery.Score manqueVoeu5 = new MultiSeedLottery.Score(0, new int[]{0, 0, 0, 0, 0, 4}, 0.5);
+
+        assertTrue(manqueVoeu1.compareTo(unSansAffectation) < 0);
+        assertTrue(manqueVoeu5.compareTo(manqueVoeu1) < 0);
+    }
+}
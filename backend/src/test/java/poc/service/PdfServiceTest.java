@@ -0,0 +1,24 @@
+package poc.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfServiceTest {
+
+    @Test
+    void testHoraire_CreneauPuisDemiJournee() {
+        // Creneau 3 : jour 1 apres-midi
+        assertEquals("Jour 1 13h30-14h15", PdfService.horaire(0, 3, "1"));
+        // Sans creneau, demi-journee importee 3 : jour 2 matin
+        assertEquals("Jour 2 09h15-10h00", PdfService.horaire(1, null, "3"));
+        assertEquals("Slot 2", PdfService.horaire(1, null, null));
+    }
+
+    @Test
+    void testNomFichier_UnParLyceeEtDemiJournee() {
+        assertEquals("convocations.pdf", PdfService.nomFichier(null, null));
+        assertEquals("convocations_lycee7_dj2.pdf", PdfService.nomFichier(7L, "2"));
+        assertEquals("convocations_djJ1matin.pdf", PdfService.nomFichier(null, "J1 matin"));
+    }
+}
@@ -0,0 +1,69 @@
+package poc.service;
+
+import org.junit.jupiter.api.Test;
+import poc.model.TypeActivite;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduleEngineTest {
+
+    private static final String[] SALLES = {"Amphi A", "Amphi B", "TD1", "TD2"};
+    private static final int[] CAPACITES = {40, 40, 20, 20};
+
+    @Test
+    void testPlanifier_RespecteLesContraintes() {
+        AssignmentSnapshot.Builder builder = new AssignmentSnapshot.Builder();
+        for (long c = 1; c <= 6; c++) builder.activite(c, 40, TypeActivite.CONFERENCE, "Amphi A");
+        builder.activite(7, 20, TypeActivite.TABLE_RONDE, "TD1");
+        builder.activite(8, 20, TypeActivite.TABLE_RONDE, "TD1");
+        builder.activite(9, 20, TypeActivite.FLASH_METIER, "TD2");
+
+        int nb = 60;
+        int[] partition = new int[nb];
+        for (int e = 0; e < nb; e++) {
+            // Un eleve sur deux arrive au second creneau (slots 1 a 4)
+            builder.etudiant(e, "1", e % 2);
+            builder.voeu(e, 1 + e % 6, 1);
+            builder.voeu(e, 1 + (e + 1) % 6, 2);
+            builder.voeu(e, 7, 3);
+            builder.voeu(e, 8, 4); // deuxieme table ronde : ne peut pas etre retenue avec le voeu 3
+            builder.voeu(e, 9, 5);
+            partition[e] = e;
+        }
+        AssignmentSnapshot snapshot = builder.build();
+
+        AssignmentResult result = ScheduleEngine.planifier(snapshot, partition, SALLES, CAPACITES);
+
+        assertEquals(0, result.incomplets());
+        assertEquals(nb * ScheduleEngine.NB_PAR_ELEVE, result.taille());
+
+        Map<Integer, Set<Integer>> slotsParEleve = new HashMap<>();
+        Map<String, Integer> chargeSession = new HashMap<>();
+        Map<String, String> salleSession = new HashMap<>();
+        for (int i = 0; i < result.taille(); i++) {
+            int e = result.etudiant(i);
+            int premier = e % 2;
+            assertTrue(result.slot(i) >= premier && result.slot(i) < premier + 4, "Slot hors creneau");
+            assertTrue(slotsParEleve.computeIfAbsent(e, k -> new HashSet<>()).add(result.slot(i)), "Deux presentations sur un slot");
+            assertNotEquals(4, result.rang(i), "Deux tables rondes pour un meme eleve");
+
+            String session = result.activite(i) + "@" + result.slot(i);
+            chargeSession.merge(session, 1, Integer::sum);
+            String salle = salleSession.putIfAbsent(session, result.salle(i));
+            assertTrue(salle == null || salle.equals(result.salle(i)), "Une session dans deux salles");
+        }
+
+        Set<String> sallesOccupees = new HashSet<>();
+        for (Map.Entry<String, String> session : salleSession.entrySet()) {
+            String slot = session.getKey().split("@")[1];
+            assertTrue(sallesOccupees.add(session.getValue() + "@" + slot), "Deux sessions dans une salle");
+            int capacite = CAPACITES[java.util.Arrays.asList(SALLES).indexOf(session.getValue())];
+            assertTrue(chargeSession.get(session.getKey()) <= capacite, "Capacite de salle depassee");
+        }
+    }
+}
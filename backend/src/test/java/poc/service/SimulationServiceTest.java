@@ -0,0 +1,164 @@
+package poc.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import poc.dto.SimulationRequest;
+import poc.model.*;
+import poc.repository.*;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class SimulationServiceTest {
+
+    @Autowired
+    private SimulationService simulationService;
+
+    @Autowired
+    private AssignmentService assignmentService;
+
+    @Autowired
+    private IncrementalAssignmentService incrementalAssignmentService;
+
+    @Autowired
+    private EtudiantRepository etudiantRepository;
+
+    @Autowired
+    private ActiviteRepository activiteRepository;
+
+    @Autowired
+    private VoeuRepository voeuRepository;
+
+    @Autowired
+    private AffectationRepository affectationRepository;
+
+    @BeforeEach
+    void setUp() {
+        affectationRepository.deleteAll();
+        voeuRepository.deleteAll();
+        etudiantRepository.deleteAll();
+        activiteRepository.deleteAll();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSimuler_CapaciteAugmenteeSansEcriture() {
+        Activite limited = new Activite();
+        limited.setTitre("Limited Session");
+        limited.setNbPlaces(1);
+        limited = activiteRepository.save(limited);
+        for (String matricule : new String[]{"M1", "M2"}) {
+            Etudiant s = new Etudiant();
+            s.setNom(matricule);
+            s.setMatriculeCsv(matricule);
+            s = etudiantRepository.save(s);
+            Voeu v = new Voeu();
+            v.setEtudiant(s);
+            v.setActivite(limited);
+            v.setPriorite(1);
+            voeuRepository.save(v);
+        }
+        voeuRepository.flush();
+        simulationService.invalider();
+
+        SimulationRequest demande = new SimulationRequest();
+        demande.setCapacites(Map.of(limited.getId(), 2));
+        Map<String, Object> reponse = simulationService.simuler(demande);
+
+        Map<String, Object> ecarts = (Map<String, Object>) reponse.get("ecarts");
+        assertEquals(2, ecarts.get("placements"));
+        assertEquals(0, ((Map<String, Object>) reponse.get("actuel")).get("placements"));
+        assertEquals(0, affectationRepository.count(), "Une simulation n'ecrit rien");
+        assertEquals(1, activiteRepository.findById(limited.getId()).orElseThrow().getNbPlaces());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSimuler_RejoueLeCalculEnregistre() {
+        Activite a = activite("A", 2);
+        Activite b = activite("B", 2);
+        for (String matricule : new String[]{"M1", "M2", "M3"}) {
+            Etudiant s = new Etudiant();
+            s.setNom(matricule);
+            s.setMatriculeCsv(matricule);
+            s = etudiantRepository.save(s);
+            voeu(s, a, 1);
+            voeu(s, b, 2);
+        }
+        voeuRepository.flush();
+        assignmentService.runAssignment();
+        simulationService.invalider();
+
+        // Sans hypothese : meme moteur, meme graine, aucun ecart avec le tirage enregistre
+        Map<String, Object> reponse = simulationService.simuler(new SimulationRequest());
+        assertEquals("voeux", reponse.get("mode"));
+        assertEquals(4, ((Map<String, Object>) reponse.get("actuel")).get("placements"));
+        Map<String, Object> ecarts = (Map<String, Object>) reponse.get("ecarts");
+        assertEquals(0, ecarts.get("placements"));
+        assertEquals(0, ecarts.get("voeu1"));
+        assertEquals(0, ecarts.get("voeu2"));
+
+        // Un autre moteur que celui du resultat enregistre est refuse
+        SimulationRequest optimal = new SimulationRequest();
+        optimal.setMode("optimal");
+        assertThrows(IllegalArgumentException.class, () -> simulationService.simuler(optimal));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSimuler_OrigineInconnueApresMiseAJourIncrementale() {
+        Activite a = activite("A", 2);
+        Activite b = activite("B", 2);
+        Etudiant s = new Etudiant();
+        s.setNom("M1");
+        s.setMatriculeCsv("M1");
+        s = etudiantRepository.save(s);
+        Voeu v = voeu(s, a, 1);
+        voeuRepository.flush();
+        assignmentService.runAssignment();
+
+        // L'eleve change de voeu, seule sa ligne est reaffectee
+        v.setActivite(b);
+        voeuRepository.flush();
+        incrementalAssignmentService.signalerModification(s.getId());
+        incrementalAssignmentService.runIncremental();
+        simulationService.invalider();
+
+        // Le mode voeux ne redonnerait pas ce resultat : tout mode demande est accepte
+        SimulationRequest optimal = new SimulationRequest();
+        optimal.setMode("optimal");
+        Map<String, Object> reponse = simulationService.simuler(optimal);
+        assertEquals("optimal", reponse.get("mode"));
+        assertEquals("incremental", reponse.get("modeEnregistre"));
+        assertEquals(1, ((Map<String, Object>) reponse.get("actuel")).get("placements"));
+    }
+
+    @Test
+    void testSimuler_RefuseActiviteInconnue() {
+        simulationService.invalider();
+        SimulationRequest demande = new SimulationRequest();
+        demande.setCapacites(Map.of(-1L, 10));
+        assertThrows(IllegalArgumentException.class, () -> simulationService.simuler(demande));
+    }
+
+    private Activite activite(String titre, int places) {
+        Activite activite = new Activite();
+        activite.setTitre(titre);
+        activite.setNbPlaces(places);
+        return activiteRepository.save(activite);
+    }
+
+    private Voeu voeu(Etudiant etudiant, Activite activite, int priorite) {
+        Voeu voeu = new Voeu();
+        voeu.setEtudiant(etudiant);
+        voeu.setActivite(activite);
+        voeu.setPriorite(priorite);
+        return voeuRepository.save(voeu);
+    }
+}
@@ -0,0 +1,58 @@
+package poc.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFileTest {
+
+    @TempDir
+    Path dossier;
+
+    @Test
+    void testEcrireLire_AllerRetour() throws IOException {
+        List<Object[]> lignes = new ArrayList<>();
+        lignes.add(new Object[]{1L, "Lycee Condorcet", null, -3L});
+        lignes.add(new Object[]{2L, "Lycee Condorcet", "B 104", Long.MAX_VALUE});
+        SnapshotFile.Table table = new SnapshotFile.Table("essai", new String[]{"id", "nom", "salle", "valeur"},
+                new char[]{'N', 'S', 'S', 'N'}, lignes);
+        Path fichier = dossier.resolve("essai.fsnap");
+
+        SnapshotFile.ecrire(fichier, 0L, List.of(table, new SnapshotFile.Table("vide", new String[]{"id"},
+                new char[]{'N'}, List.of())));
+        List<SnapshotFile.Table> lues = SnapshotFile.lire(fichier);
+
+        assertEquals(2, lues.size());
+        assertEquals("essai", lues.get(0).nom);
+        assertArrayEquals(table.colonnes, lues.get(0).colonnes);
+        assertArrayEquals(new Object[]{1L, "Lycee Condorcet", null, -3L}, lues.get(0).lignes.get(0));
+        assertArrayEquals(new Object[]{2L, "Lycee Condorcet", "B 104", Long.MAX_VALUE}, lues.get(0).lignes.get(1));
+        assertTrue(lues.get(1).lignes.isEmpty());
+    }
+
+    @Test
+    void testLire_RefuseFichierCorrompuOuTronque() throws IOException {
+        List<Object[]> lignes = new ArrayList<>();
+        lignes.add(new Object[]{42L, "Atelier"});
+        Path fichier = dossier.resolve("essai.fsnap");
+        SnapshotFile.ecrire(fichier, 0L, List.of(new SnapshotFile.Table("essai", new String[]{"id", "titre"},
+                new char[]{'N', 'S'}, lignes)));
+        byte[] octets = Files.readAllBytes(fichier);
+
+        byte[] corrompu = octets.clone();
+        corrompu[corrompu.length - 8] ^= 0x01;
+        Files.write(fichier, corrompu);
+        assertThrows(IOException.class, () -> SnapshotFile.lire(fichier));
+
+        Files.write(fichier, Arrays.copyOf(octets, octets.length - 3));
+        assertThrows(IOException.class, () -> SnapshotFile.lire(fichier));
+    }
+}
@@ -0,0 +1,53 @@
+package poc.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TsvTokenizerTest {
+
+    @Test
+    void testLignes_ChampsEtNombres() throws Exception {
+        byte[] fichier = "Etablissement\tDate\tVoeu 1\r\nLycée A\t26/03/2026\t Conf16 \r\n\r\nB\t\tTR2"
+                .getBytes(StandardCharsets.ISO_8859_1);
+        TsvTokenizer tsv = new TsvTokenizer(new ByteArrayInputStream(fichier), StandardCharsets.ISO_8859_1);
+
+        assertTrue(tsv.ligneSuivante());
+        assertEquals(3, tsv.nbChamps());
+        assertEquals("Voeu 1", tsv.texte(2));
+
+        assertTrue(tsv.ligneSuivante());
+        assertEquals("Lycée A", tsv.texte(0));
+        int[] nombres = new int[3];
+        assertEquals(3, tsv.nombres(1, nombres));
+        assertArrayEquals(new int[]{26, 3, 2026}, nombres);
+        assertTrue(tsv.commencePar(2, "conf"));
+        assertEquals(1, tsv.nombres(2, nombres));
+        assertEquals(16, nombres[0]);
+
+        assertTrue(tsv.ligneSuivante());
+        assertTrue(tsv.estVide(0));
+
+        assertTrue(tsv.ligneSuivante());
+        assertTrue(tsv.estVide(1));
+        assertTrue(tsv.commencePar(2, "TR"));
+        assertEquals(4, tsv.numeroLigne());
+        assertFalse(tsv.ligneSuivante());
+    }
+
+    @Test
+    void testBomUtf8() throws Exception {
+        byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+        byte[] texte = "Prénom\n".getBytes(StandardCharsets.UTF_8);
+        byte[] fichier = new byte[bom.length + texte.length];
+        System.arraycopy(bom, 0, fichier, 0, 3);
+        System.arraycopy(texte, 0, fichier, 3, texte.length);
+        TsvTokenizer tsv = new TsvTokenizer(new ByteArrayInputStream(fichier), StandardCharsets.ISO_8859_1);
+
+        assertTrue(tsv.ligneSuivante());
+        assertEquals("Prénom", tsv.texte(0));
+    }
+}
@@ -0,0 +1,67 @@
+package poc.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import poc.dto.ImportReport;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class VoeuImportServiceTest {
+
+    private static final String ENTETE = "Etablissement\tNom de famille\tPrenom\tDate\tHeure\tID National"
+            + "\tLib. Structure\tVoeu 1\tVoeu 2\tVoeu 3\tVoeu 4\tVoeu 5\n";
+
+    @Autowired
+    private VoeuImportService voeuImportService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void testImporterVoeux_RapprocheLesElevesDejaConnusParIne() throws Exception {
+        // Eleve deja present sous un autre matricule (data.sql : FAU0001)
+        jdbc.update("MERGE INTO etudiant (matricule_csv, nom, prenom, ine, classe, serie_bac, demi_journee) "
+                + "KEY (matricule_csv) "
+                + "VALUES ('FAU0001', 'ABDELMOUMENE', 'Samy', '120890177FA', '1RE 1 STMG', 'Technologique', '1')");
+        long avant = compter("SELECT COUNT(*) FROM etudiant");
+
+        String tsv = ENTETE
+                + "LGT Fauriel\tABDELMOUMENE\tSamy\t26/03/2026\t08:30\t120890177FA\t1RE 1 STMG\tConf1\tConf2\tConf3\tConf4\tConf5\n"
+                + "LGT Fauriel\tNOUVEAU\tEleve\t26/03/2026\t08:30\t199999999ZZ\t1RE 2\tConf1\tConf2\tConf3\tConf4\tConf5\n"
+                + "LGT Fauriel\tAUTRE\tEleve\t26/03/2026\t08:30\t199999998ZZ\t1RE 2\tConf1\tConf2\tConf3\tConf4\tTR99\n";
+        ImportReport report = voeuImportService.importerVoeux(
+                new ByteArrayInputStream(tsv.getBytes(StandardCharsets.ISO_8859_1)), "voeux.csv");
+
+        assertEquals(1, report.getMisAJour());
+        assertEquals(1, report.getInseres());
+        assertEquals(Map.of("voeu-inconnu", 1), report.getRejetsParCategorie());
+        assertEquals(avant + 1, compter("SELECT COUNT(*) FROM etudiant"));
+
+        // La ligne existante garde son matricule et sa serie, et recoit les voeux du fichier
+        Map<String, Object> eleve = jdbc.queryForMap(
+                "SELECT id, matricule_csv, serie_bac FROM etudiant WHERE ine = '120890177FA'");
+        assertEquals("FAU0001", eleve.get("matricule_csv"));
+        assertEquals("Technologique", eleve.get("serie_bac"));
+        assertEquals(5, compter("SELECT COUNT(*) FROM voeu WHERE etudiant_id = " + eleve.get("id")));
+
+        // Un second import du meme fichier ne cree plus aucun eleve
+        report = voeuImportService.importerVoeux(
+                new ByteArrayInputStream(tsv.getBytes(StandardCharsets.ISO_8859_1)), "voeux.csv");
+        assertEquals(2, report.getMisAJour());
+        assertEquals(0, report.getInseres());
+        assertEquals(avant + 1, compter("SELECT COUNT(*) FROM etudiant"));
+    }
+
+    private long compter(String sql) {
+        return jdbc.queryForObject(sql, Long.class);
+    }
+}
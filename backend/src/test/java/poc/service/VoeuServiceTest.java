@@ -0,0 +1,24 @@
+package poc.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class VoeuServiceTest {
+
+    @Autowired
+    private VoeuService voeuService;
+
+    @Test
+    void testEnregistrerVoeux_RefuseUneActiviteEnDouble() {
+        // Refuse avant toute lecture : ni l'eleve ni les activites n'ont besoin d'exister
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> voeuService.enregistrerVoeux(1L, List.of(1L, 2L, 3L, 3L, 4L)));
+        assertEquals("Une même activité ne peut pas être choisie deux fois.", e.getMessage());
+    }
+}
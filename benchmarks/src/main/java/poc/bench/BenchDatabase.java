@@ -0,0 +1,138 @@
+package poc.bench;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.util.ReflectionUtils;
+import poc.model.Activite;
+import poc.model.TypeActivite;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Base H2 en memoire au schema du backend (noms de colonnes Hibernate), remplie d'un jeu
+// synthetique : 19 conferences, 5 tables rondes, 6 flash metiers, 5 voeux et 4 affectations par eleve
+public final class BenchDatabase implements AutoCloseable {
+
+    public static final int NB_CONFERENCES = 19;
+    public static final int NB_TABLES_RONDES = 5;
+    public static final int NB_FLASH_METIERS = 6;
+
+    private static final AtomicInteger NUMERO = new AtomicInteger();
+
+    private final String url;
+    private final SingleConnectionDataSource dataSource;
+    private final JdbcTemplate jdbc;
+    private final List<Activite> activites = new ArrayList<>();
+
+    public BenchDatabase(int nbEtudiants) {
+        url = "jdbc:h2:mem:bench" + NUMERO.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+        dataSource = new SingleConnectionDataSource(url, "sa", "", true);
+        jdbc = new JdbcTemplate(dataSource);
+        schema();
+        remplir(nbEtudiants, new Random(42));
+    }
+
+    public JdbcTemplate jdbc() {
+        return jdbc;
+    }
+
+    // Meme base pour d'autres connexions (pool des benchmarks concurrents), utilisateur sa sans mot de passe
+    public String url() {
+        return url;
+    }
+
+    public List<Activite> activites() {
+        return activites;
+    }
+
+    // Les services du backend sont cables par @Autowired sur des champs prives
+    public static void injecter(Object service, String champ, Object valeur) {
+        Field field = ReflectionUtils.findField(service.getClass(), champ);
+        if (field == null) throw new IllegalArgumentException(service.getClass().getSimpleName() + "." + champ);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, service, valeur);
+    }
+
+    // Ids des activites : conferences 1..19, tables rondes 20..24, flash metiers 25..30
+    public static TypeActivite type(long activiteId) {
+        if (activiteId <= NB_CONFERENCES) return TypeActivite.CONFERENCE;
+        if (activiteId <= NB_CONFERENCES + NB_TABLES_RONDES) return TypeActivite.TABLE_RONDE;
+        return TypeActivite.FLASH_METIER;
+    }
+
+    // 5 voeux respectant la regle 3-4-5 : 2 conferences puis conference / table ronde / flash metier
+    public static long[] voeux(Random random) {
+        long[] v = new long[5];
+        List<Long> confs = new ArrayList<>();
+        for (long c = 1; c <= NB_CONFERENCES; c++) confs.add(c);
+        Collections.shuffle(confs, random);
+        v[0] = confs.get(0);
+        v[1] = confs.get(1);
+        v[2] = confs.get(2);
+        switch (random.nextInt(3)) {
+            case 0 -> { v[3] = confs.get(3); v[4] = confs.get(4); }
+            case 1 -> { v[3] = confs.get(3); v[4] = NB_CONFERENCES + 1 + random.nextInt(NB_TABLES_RONDES); }
+            default -> {
+                v[3] = NB_CONFERENCES + 1 + random.nextInt(NB_TABLES_RONDES);
+                v[4] = NB_CONFERENCES + NB_TABLES_RONDES + 1 + random.nextInt(NB_FLASH_METIERS);
+            }
+        }
+        return v;
+    }
+
+    private void schema() {
+        jdbc.execute("CREATE TABLE lycee (id BIGINT AUTO_INCREMENT PRIMARY KEY, nom VARCHAR(255) UNIQUE NOT NULL)");
+        jdbc.execute("CREATE TABLE etudiant (id BIGINT AUTO_INCREMENT PRIMARY KEY, matricule_csv VARCHAR(255) UNIQUE NOT NULL, "
+                + "nom VARCHAR(255), prenom VARCHAR(255), serie_bac VARCHAR(255), lycee_id BIGINT, classe VARCHAR(255), "
+                + "demi_journee VARCHAR(255), ine VARCHAR(255) UNIQUE, creneau INT)");
+        jdbc.execute("CREATE TABLE activite (id BIGINT AUTO_INCREMENT PRIMARY KEY, titre VARCHAR(255), type VARCHAR(255), "
+                + "nb_places INT, salle VARCHAR(255))");
+        jdbc.execute("CREATE TABLE voeu (id BIGINT AUTO_INCREMENT PRIMARY KEY, etudiant_id BIGINT, activite_id BIGINT, "
+                + "priorite INT, UNIQUE (etudiant_id, priorite))");
+        jdbc.execute("CREATE TABLE affectation (id BIGINT AUTO_INCREMENT PRIMARY KEY, etudiant_id BIGINT, activite_id BIGINT, "
+                + "rang_voeu INT, slot INT, salle VARCHAR(255))");
+    }
+
+    private void remplir(int nbEtudiants, Random random) {
+        for (int l = 1; l <= 10; l++) jdbc.update("INSERT INTO lycee (nom) VALUES (?)", "Lycee " + l);
+
+        int nbActivites = NB_CONFERENCES + NB_TABLES_RONDES + NB_FLASH_METIERS;
+        for (long a = 1; a <= nbActivites; a++) {
+            Activite activite = new Activite();
+            activite.setId(a);
+            activite.setType(type(a));
+            activite.setTitre(activite.getType() + " " + a);
+            activite.setNbPlaces(Math.max(30, nbEtudiants / 8));
+            activite.setSalle("Salle " + a);
+            activites.add(activite);
+            jdbc.update("INSERT INTO activite (titre, type, nb_places, salle) VALUES (?, ?, ?, ?)",
+                    activite.getTitre(), activite.getType().name(), activite.getNbPlaces(), activite.getSalle());
+        }
+
+        List<Object[]> etudiants = new ArrayList<>();
+        List<Object[]> voeux = new ArrayList<>();
+        List<Object[]> affectations = new ArrayList<>();
+        for (int e = 1; e <= nbEtudiants; e++) {
+            etudiants.add(new Object[]{"M" + e, "NOM" + e, "Prenom" + e, 1 + e % 10, "1RE " + e % 12,
+                    String.valueOf(1 + e % 4), e % 8});
+            long[] v = voeux(random);
+            for (int p = 0; p < 5; p++) voeux.add(new Object[]{e, v[p], p + 1});
+            for (int s = 0; s < 4; s++) affectations.add(new Object[]{e, v[s], s + 1, s, "Salle " + v[s]});
+        }
+        jdbc.batchUpdate("INSERT INTO etudiant (matricule_csv, nom, prenom, lycee_id, classe, demi_journee, creneau) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)", etudiants);
+        jdbc.batchUpdate("INSERT INTO voeu (etudiant_id, activite_id, priorite) VALUES (?, ?, ?)", voeux);
+        jdbc.batchUpdate("INSERT INTO affectation (etudiant_id, activite_id, rang_voeu, slot, salle) VALUES (?, ?, ?, ?, ?)",
+                affectations);
+    }
+
+    @Override
+    public void close() {
+        jdbc.execute("SHUTDOWN");
+        dataSource.destroy();
+    }
+}
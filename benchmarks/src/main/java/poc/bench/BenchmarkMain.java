@@ -0,0 +1,32 @@
+package poc.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Set;
+
+// Point d'entree de benchmarks.jar : options JMH habituelles, profileur GC (debit d'allocation,
+// gc.alloc.rate.norm) ajoute si aucun profileur n'est demande
+public final class BenchmarkMain {
+
+    private static final Set<String> COMMANDES = Set.of("-h", "-l", "-lp", "-lrf", "-lprof");
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (String arg : args) {
+            if (COMMANDES.contains(arg)) {
+                org.openjdk.jmh.Main.main(args);
+                return;
+            }
+        }
+        CommandLineOptions cli = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+        if (cli.getProfilers().isEmpty()) options.addProfiler(GCProfiler.class);
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,74 @@
+package poc.bench.load;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+// Cohorte synthetique ecrite dans la base du backend demarre : lycees, eleves (matricule LT<n>,
+// INE INELT<n>), et tirage de 5 voeux respectant la regle 3-4-5 parmi les activites en base
+final class Cohorte {
+
+    final List<Long> lycees = new ArrayList<>();
+    final List<String> matricules = new ArrayList<>();
+    final List<Long> etudiants = new ArrayList<>();
+    private final List<Long> conferences = new ArrayList<>();
+    private final List<Long> tablesRondes = new ArrayList<>();
+    private final List<Long> flashMetiers = new ArrayList<>();
+
+    Cohorte(JdbcTemplate jdbc, int nbEtudiants, int nbLycees, long graine) {
+        Random random = new Random(graine);
+        for (int l = 1; l <= nbLycees; l++) {
+            jdbc.update("INSERT INTO lycee (nom) VALUES (?)", "Lycee synthetique " + l);
+        }
+        lycees.addAll(jdbc.queryForList("SELECT id FROM lycee WHERE nom LIKE 'Lycee synthetique %' ORDER BY id", Long.class));
+
+        String[] series = {"GENERALE", "STMG", "STI2D", "ST2S"};
+        List<Object[]> lignes = new ArrayList<>(nbEtudiants);
+        for (int e = 1; e <= nbEtudiants; e++) {
+            lignes.add(new Object[]{"LT" + e, "INELT" + e, "NOM" + e, "Prenom" + e, series[random.nextInt(series.length)],
+                    lycees.get(random.nextInt(lycees.size())), "1RE " + (1 + random.nextInt(12)), String.valueOf(1 + e % 4)});
+        }
+        jdbc.batchUpdate("INSERT INTO etudiant (matricule_csv, ine, nom, prenom, serie_bac, lycee_id, classe, demi_journee) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", lignes);
+        jdbc.query("SELECT id, matricule_csv FROM etudiant WHERE matricule_csv LIKE 'LT%' ORDER BY id", rs -> {
+            etudiants.add(rs.getLong(1));
+            matricules.add(rs.getString(2));
+        });
+
+        jdbc.query("SELECT id, type FROM activite ORDER BY id", rs -> {
+            switch (rs.getString(2)) {
+                case "CONFERENCE" -> conferences.add(rs.getLong(1));
+                case "TABLE_RONDE" -> tablesRondes.add(rs.getLong(1));
+                case "FLASH_METIER" -> flashMetiers.add(rs.getLong(1));
+                default -> { }
+            }
+        });
+        if (conferences.size() < 5) throw new IllegalStateException("Il faut au moins 5 conferences en base");
+    }
+
+    int taille() {
+        return etudiants.size();
+    }
+
+    // 2 conferences, puis 3 conferences, 2 conferences + table ronde, ou conference + table ronde + flash metier
+    List<Long> voeux(Random random) {
+        List<Long> confs = new ArrayList<>(conferences);
+        Collections.shuffle(confs, random);
+        List<Long> v = new ArrayList<>(confs.subList(0, 3));
+        int tirage = random.nextInt(3);
+        if (tirage == 1 && !tablesRondes.isEmpty()) {
+            v.add(confs.get(3));
+            v.add(tablesRondes.get(random.nextInt(tablesRondes.size())));
+        } else if (tirage == 2 && !tablesRondes.isEmpty() && !flashMetiers.isEmpty()) {
+            v.add(tablesRondes.get(random.nextInt(tablesRondes.size())));
+            v.add(flashMetiers.get(random.nextInt(flashMetiers.size())));
+        } else {
+            v.add(confs.get(3));
+            v.add(confs.get(4));
+        }
+        return v;
+    }
+}
@@ -0,0 +1,326 @@
+package poc.bench.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import poc.PocApplication;
+import poc.config.BoundedDataSource;
+import poc.service.EtudiantIdentityIndex;
+import poc.service.ReferenceDataCache;
+import poc.service.StatisticsService;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Simulation d'une journee d'inscription, hors ligne sur une seule machine : demarre le backend
+// (H2 en memoire, port libre), ecrit une cohorte synthetique, puis rejoue le trafic de production :
+//  - eleves arrivant selon un processus de Poisson (--arrivees par seconde) : connexion,
+//    referentiel des activites, saisie des voeux ;
+//  - professeurs interrogeant /api/viewer/stats/{lyceeId} et admins /api/stats/* a intervalle fixe.
+// Latences par endpoint (LatencyHistogram) ; la duree de session est comptee depuis l'instant
+// d'arrivee prevu, donc inclut l'attente d'un client libre (pas d'omission coordonnee).
+// Code de sortie 1 si un p99 depasse son budget ou si le taux d'erreur depasse --erreurs-max.
+// --profil virtual demarre le backend avec le profil Spring "virtual" : threads virtuels (JVM 21
+// ou plus a l'execution, ignores sinon) et acces JDBC borne par BoundedDataSource ; le mode
+// effectif et l'attente des permis JDBC sont affiches. --profil plateforme (defaut) : tel quel.
+//
+//   cd benchmarks && mvn -B package
+//   java -cp target/benchmarks.jar poc.bench.load.LoadTestMain --etudiants 4000 --arrivees 80 --duree 60 \
+//        --p99 voeux=200,login=150 [--profil virtual]
+public final class LoadTestMain {
+
+    private static final List<String> PROFILS = List.of("plateforme", "virtual");
+    private static final Map<String, Double> BUDGETS_P99_MS = new LinkedHashMap<>();
+    static {
+        BUDGETS_P99_MS.put("login", 250.0);
+        BUDGETS_P99_MS.put("activites", 100.0);
+        BUDGETS_P99_MS.put("voeux", 300.0);
+        BUDGETS_P99_MS.put("viewer-stats", 150.0);
+        BUDGETS_P99_MS.put("admin-stats", 500.0);
+        BUDGETS_P99_MS.put("session", 2000.0);
+    }
+
+    private final Map<String, String> options;
+    private final Map<String, LatencyHistogram> histogrammes = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> erreurs = new ConcurrentHashMap<>();
+    private final ObjectMapper json = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+    private String base;
+    private Cohorte cohorte;
+
+    private LoadTestMain(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Option attendue : " + args[i]);
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        System.exit(new LoadTestMain(options).executer() ? 0 : 1);
+    }
+
+    private boolean executer() throws Exception {
+        String profil = options.getOrDefault("profil", "plateforme");
+        if (!PROFILS.contains(profil)) throw new IllegalArgumentException("Profil inconnu : " + profil + " (attendu : " + PROFILS + ")");
+        File inputs = new File("Inputs");
+        String[] classeurs = inputs.list((d, n) -> n.endsWith(".xlsx"));
+        if (classeurs != null && classeurs.length > 0) {
+            System.out.println("Attention : Inputs/ contient des classeurs, DataInitializer les importera en plus de la cohorte");
+        }
+
+        long debut = System.nanoTime();
+        try (ConfigurableApplicationContext contexte = demarrer(profil)) {
+            base = "http://127.0.0.1:" + ((WebServerApplicationContext) contexte).getWebServer().getPort();
+            cohorte = new Cohorte(contexte.getBean(JdbcTemplate.class), entier("etudiants", 4000), entier("lycees", 8),
+                    entier("graine", 42));
+            // Caches du backend charges avant l'ecriture directe de la cohorte
+            contexte.getBean(EtudiantIdentityIndex.class).invalider();
+            contexte.getBean(StatisticsService.class).invaliderEleves();
+            contexte.getBean(ReferenceDataCache.class).invalider();
+            System.out.printf("Backend pret sur %s en %.1f s, cohorte de %d eleves%n",
+                    base, (System.nanoTime() - debut) / 1e9, cohorte.taille());
+            System.out.println(execution(contexte, profil));
+
+            charger(entier("echauffement", 10), false);
+            histogrammes.clear();
+            erreurs.clear();
+            charger(entier("duree", 60), true);
+            boolean ok = rapport();
+            attenteJdbc(contexte);
+            return ok;
+        }
+    }
+
+    // application.properties du backend, surcharge en arguments (priorite la plus haute) : base en
+    // memoire, port libre, journal reduit
+    private ConfigurableApplicationContext demarrer(String profil) {
+        SpringApplicationBuilder application = new SpringApplicationBuilder(PocApplication.class);
+        if (profil.equals("virtual")) application.profiles("virtual");
+        return application.run(
+                "--server.port=0",
+                "--server.address=127.0.0.1",
+                "--spring.datasource.url=jdbc:h2:mem:charge;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--spring.h2.console.enabled=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN");
+    }
+
+    // Mode effectivement obtenu : threads des requetes et borne JDBC (permis contre taille du pool)
+    private static String execution(ConfigurableApplicationContext contexte, String profil) throws Exception {
+        boolean virtuels = Threading.VIRTUAL.isActive(contexte.getEnvironment());
+        StringBuilder ligne = new StringBuilder("Profil ").append(profil)
+                .append(" (profils Spring ").append(Arrays.toString(contexte.getEnvironment().getActiveProfiles()))
+                .append(") : threads ")
+                .append(virtuels ? "virtuels" : "plateforme")
+                .append(" (JVM ").append(Runtime.version().feature()).append(")");
+        DataSource dataSource = contexte.getBean(DataSource.class);
+        int pool = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        if (dataSource instanceof BoundedDataSource) {
+            double permis = contexte.getBean(MeterRegistry.class).get("fesup.jdbc.permis.libres").gauge().value();
+            ligne.append(String.format(", JDBC borne a %.0f permis pour un pool de %d connexions", permis, pool));
+        } else {
+            ligne.append(", JDBC non borne, pool de ").append(pool).append(" connexions");
+        }
+        return ligne.toString();
+    }
+
+    // Attente des permis de BoundedDataSource, echauffement compris (profil virtual seulement)
+    private static void attenteJdbc(ConfigurableApplicationContext contexte) {
+        Timer attente = contexte.getBean(MeterRegistry.class).find("fesup.jdbc.attente").timer();
+        if (attente == null) return;
+        HistogramSnapshot snapshot = attente.takeSnapshot();
+        StringBuilder ligne = new StringBuilder(String.format("Attente d'un permis JDBC : %d emprunts, moy %.2f ms",
+                snapshot.count(), snapshot.mean(TimeUnit.MILLISECONDS)));
+        for (ValueAtPercentile p : snapshot.percentileValues()) {
+            ligne.append(String.format(", p%.0f %.2f ms", p.percentile() * 100, p.value(TimeUnit.MILLISECONDS)));
+        }
+        ligne.append(String.format(", max %.2f ms", snapshot.max(TimeUnit.MILLISECONDS)));
+        System.out.println(ligne);
+    }
+
+    // Une phase de charge : eleves en boucle ouverte, professeurs et admins en boucle fermee
+    private void charger(int secondes, boolean mesure) throws InterruptedException {
+        ExecutorService clients = Executors.newFixedThreadPool(entier("clients", 64));
+        ExecutorService sondeurs = Executors.newCachedThreadPool();
+        long fin = System.nanoTime() + TimeUnit.SECONDS.toNanos(secondes);
+
+        for (int v = 0; v < entier("viewers", 20); v++) {
+            sondeurs.submit(() -> sonder(fin, entier("intervalle-viewer-ms", 2000), this::statsViewer));
+        }
+        for (int a = 0; a < entier("admins", 2); a++) {
+            sondeurs.submit(() -> sonder(fin, entier("intervalle-admin-ms", 5000), this::statsAdmin));
+        }
+
+        // Arrivees de Poisson : ecarts exponentiels de moyenne 1 / taux
+        double taux = Double.parseDouble(options.getOrDefault("arrivees", "50"));
+        Random random = new Random(entier("graine", 42));
+        long arrivee = System.nanoTime();
+        while (arrivee < fin) {
+            long prevue = arrivee;
+            clients.submit(() -> session(prevue));
+            arrivee += (long) (-Math.log(1 - random.nextDouble()) / taux * 1e9);
+            long attente = arrivee - System.nanoTime();
+            if (attente > 0) TimeUnit.NANOSECONDS.sleep(attente);
+        }
+
+        clients.shutdown();
+        sondeurs.shutdown();
+        clients.awaitTermination(2, TimeUnit.MINUTES);
+        sondeurs.awaitTermination(1, TimeUnit.MINUTES);
+        if (mesure) System.out.printf("Phase de mesure : %d s, %.0f arrivees/s%n", secondes, taux);
+    }
+
+    private void session(long prevue) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int e = random.nextInt(cohorte.taille());
+        JsonNode connexion = appeler("login", "POST", "/api/auth/login", Map.of("matricule", cohorte.matricules.get(e)), null);
+        if (connexion == null) return;
+        String jeton = connexion.path("token").asText();
+        if (appeler("activites", "GET", "/api/referentiel/activites", null, jeton) == null) return;
+        pause();
+        if (appeler("voeux", "POST", "/api/voeux",
+                Map.of("etudiantId", cohorte.etudiants.get(e), "activitesIds", cohorte.voeux(random)), jeton) == null) return;
+        histogramme("session").enregistrer(System.nanoTime() - prevue);
+    }
+
+    private void statsViewer() {
+        List<Long> lycees = cohorte.lycees;
+        appeler("viewer-stats", "GET", "/api/viewer/stats/" + lycees.get(ThreadLocalRandom.current().nextInt(lycees.size())),
+                null, null);
+    }
+
+    private void statsAdmin() {
+        for (String chemin : List.of("/api/stats/global", "/api/stats/lycee", "/api/stats/classe")) {
+            appeler("admin-stats", "GET", chemin, null, null);
+        }
+    }
+
+    private void sonder(long fin, int intervalleMs, Runnable requete) {
+        try {
+            // Decalage initial aleatoire pour ne pas synchroniser les sondeurs
+            Thread.sleep(ThreadLocalRandom.current().nextInt(Math.max(1, intervalleMs)));
+            while (System.nanoTime() < fin) {
+                requete.run();
+                Thread.sleep(intervalleMs);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void pause() {
+        int ms = entier("reflexion-ms", 0);
+        if (ms <= 0) return;
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(ms));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Corps JSON de la reponse (texte brut encapsule), ou null en cas d'erreur
+    private JsonNode appeler(String endpoint, String methode, String chemin, Object corps, String jeton) {
+        try {
+            HttpRequest.Builder requete = HttpRequest.newBuilder(URI.create(base + chemin))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json");
+            if (jeton != null) requete.header("Authorization", "Bearer " + jeton);
+            requete.method(methode, corps == null ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofByteArray(json.writeValueAsBytes(corps)));
+
+            long debut = System.nanoTime();
+            HttpResponse<byte[]> reponse = http.send(requete.build(), HttpResponse.BodyHandlers.ofByteArray());
+            histogramme(endpoint).enregistrer(System.nanoTime() - debut);
+            if (reponse.statusCode() >= 400) {
+                erreur(endpoint);
+                return null;
+            }
+            String type = reponse.headers().firstValue("Content-Type").orElse("");
+            return type.contains("json") ? json.readTree(reponse.body()) : json.getNodeFactory().textNode(new String(reponse.body()));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception ex) {
+            erreur(endpoint);
+            return null;
+        }
+    }
+
+    private LatencyHistogram histogramme(String endpoint) {
+        return histogrammes.computeIfAbsent(endpoint, k -> new LatencyHistogram());
+    }
+
+    private void erreur(String endpoint) {
+        erreurs.computeIfAbsent(endpoint, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    private boolean rapport() {
+        Map<String, Double> budgets = budgets();
+        double erreursMax = Double.parseDouble(options.getOrDefault("erreurs-max", "0.01"));
+        int duree = entier("duree", 60);
+        boolean ok = true;
+
+        System.out.printf("%-14s %8s %8s %8s %8s %8s %8s %8s %7s  %s%n",
+                "endpoint", "req", "req/s", "moy", "p50", "p95", "p99", "max", "err", "budget p99");
+        for (String endpoint : new TreeSet<>(histogrammes.keySet())) {
+            LatencyHistogram h = histogrammes.get(endpoint);
+            long nbErreurs = erreurs.getOrDefault(endpoint, new AtomicLong()).get();
+            double p99 = h.percentileMs(0.99);
+            Double budget = budgets.get(endpoint);
+            boolean depasse = budget != null && p99 > budget;
+            boolean tropDErreurs = h.nombre() > 0 && (double) nbErreurs / h.nombre() > erreursMax;
+            ok &= !depasse && !tropDErreurs;
+            System.out.printf("%-14s %8d %8.1f %8.1f %8.1f %8.1f %8.1f %8.1f %7d  %s%n",
+                    endpoint, h.nombre(), (double) h.nombre() / duree, h.moyenneMs(), h.percentileMs(0.50),
+                    h.percentileMs(0.95), p99, h.maxMs(), nbErreurs,
+                    budget == null ? "-" : String.format("%.0f ms%s", budget, depasse ? "  DEPASSE" : ""));
+        }
+        System.out.println(ok ? "Budgets respectes" : "ECHEC : budget p99 ou taux d'erreur depasse");
+        return ok;
+    }
+
+    // Budgets par defaut, surcharges par --p99 endpoint=ms,endpoint=ms
+    private Map<String, Double> budgets() {
+        Map<String, Double> budgets = new LinkedHashMap<>(BUDGETS_P99_MS);
+        String surcharges = options.get("p99");
+        if (surcharges != null) {
+            for (String s : surcharges.split(",")) {
+                String[] kv = s.split("=");
+                budgets.put(kv[0].trim(), Double.parseDouble(kv[1].trim()));
+            }
+        }
+        return budgets;
+    }
+
+    private int entier(String option, int defaut) {
+        String valeur = options.get(option);
+        return valeur != null ? Integer.parseInt(valeur) : defaut;
+    }
+}
@@ -0,0 +1,61 @@
+package poc.service;
+
+import org.openjdk.jmh.annotations.*;
+import poc.bench.BenchDatabase;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Boucle d'affectation (AssignmentService) sur un instantane synthetique, hors base :
+// affectation par voeux et planning horaire d'une demi-journee
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AssignmentBenchmark {
+
+    private static final String[] SALLES = {"Amphi A", "Amphi B", "Amphi C", "Amphi D", "Amphi E",
+            "TD1", "TD2", "TD3", "TD4", "TD5", "FM1", "FM2", "FM3", "FM4", "FM5", "FM6"};
+
+    @Param({"1000", "5000", "50000"})
+    public int nbEtudiants;
+
+    private AssignmentSnapshot snapshot;
+    private int[] ordre;
+    private int[] demiJournee;
+    private int[] capSalles;
+
+    @Setup
+    public void preparer() {
+        Random random = new Random(42);
+        AssignmentSnapshot.Builder builder = new AssignmentSnapshot.Builder();
+        int nbActivites = BenchDatabase.NB_CONFERENCES + BenchDatabase.NB_TABLES_RONDES + BenchDatabase.NB_FLASH_METIERS;
+        for (long a = 1; a <= nbActivites; a++) {
+            builder.activite(a, Math.max(30, nbEtudiants / 8), BenchDatabase.type(a), SALLES[(int) (a % SALLES.length)]);
+        }
+        for (long e = 0; e < nbEtudiants; e++) {
+            builder.etudiant(e, "1", (int) (e % 2));
+            long[] v = BenchDatabase.voeux(random);
+            for (int p = 0; p < 5; p++) builder.voeu(e, v[p], p + 1);
+        }
+        snapshot = builder.build();
+        ordre = AssignmentEngine.tirage(nbEtudiants, random);
+
+        capSalles = new int[SALLES.length];
+        for (int s = 0; s < SALLES.length; s++) capSalles[s] = Math.max(40, nbEtudiants / 10);
+        demiJournee = new int[nbEtudiants];
+        for (int e = 0; e < nbEtudiants; e++) demiJournee[e] = e;
+    }
+
+    @Benchmark
+    public AssignmentResult affectationParVoeux() {
+        return AssignmentEngine.affecter(snapshot, ordre);
+    }
+
+    @Benchmark
+    public AssignmentResult planningDemiJournee() {
+        return ScheduleEngine.planifier(snapshot, demiJournee, SALLES, capSalles);
+    }
+}
@@ -0,0 +1,47 @@
+package poc.service;
+
+import org.openjdk.jmh.annotations.*;
+import poc.bench.BenchDatabase;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Convocations PDF (PdfService.writeTickets) lues en H2 memoire : score par convocation
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PdfTicketsBenchmark {
+
+    private static final int NB_ETUDIANTS = 2_000;
+
+    private BenchDatabase base;
+    private ExecutorService executor;
+    private PdfService pdfService;
+
+    @Setup
+    public void preparer() {
+        base = new BenchDatabase(NB_ETUDIANTS);
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        pdfService = new PdfService();
+        BenchDatabase.injecter(pdfService, "jdbc", base.jdbc());
+        BenchDatabase.injecter(pdfService, "exportExecutor", executor);
+    }
+
+    @TearDown
+    public void fermer() {
+        executor.shutdown();
+        base.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NB_ETUDIANTS)
+    public void convocations() throws IOException {
+        pdfService.writeTickets(OutputStream.nullOutputStream(), null, null);
+    }
+}
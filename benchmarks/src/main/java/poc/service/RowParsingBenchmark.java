@@ -0,0 +1,88 @@
+package poc.service;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Lecture des lignes importees, sans ecriture en base : classeur eleves au format Brassens
+// (SheetRowReader, chemin de CsvImportService / ExcelService) et fichier de voeux TSV (TsvTokenizer).
+// Score par ligne lue.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowParsingBenchmark {
+
+    private static final int NB_LIGNES = 5_000;
+
+    private byte[] xlsx;
+    private byte[] tsv;
+
+    @Setup
+    public void preparer() throws IOException {
+        try (XSSFWorkbook wb = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet sheet = wb.createSheet("Eleves");
+            String[] entete = {"Etablissement", "Nom", "Prenom", "INE", "Classe", "Demi-journee"};
+            Row header = sheet.createRow(0);
+            for (int c = 0; c < entete.length; c++) header.createCell(c).setCellValue(entete[c]);
+            for (int l = 1; l <= NB_LIGNES; l++) {
+                Row row = sheet.createRow(l);
+                row.createCell(0).setCellValue("Lycee Georges Brassens");
+                row.createCell(1).setCellValue("NOM" + l);
+                row.createCell(2).setCellValue("Prenom" + l);
+                row.createCell(3).setCellValue(String.format("%09dAB", l));
+                row.createCell(4).setCellValue("1RE " + l % 12);
+                row.createCell(5).setCellValue(1 + l % 4);
+            }
+            wb.write(out);
+            xlsx = out.toByteArray();
+        }
+
+        StringBuilder sb = new StringBuilder("Etablissement\tNom de famille\tPrenom\tDate\tHeure\tID National\t"
+                + "Lib. Structure\tVoeu 1\tVoeu 2\tVoeu 3\tVoeu 4\tVoeu 5\r\n");
+        for (int l = 1; l <= NB_LIGNES; l++) {
+            sb.append("Lycée ").append(l % 10).append("\tN").append(l).append("\tP").append(l)
+                    .append(l % 2 == 0 ? "\t26/03/2026\t08:30\t" : "\t27/03/2026\t14:15\t")
+                    .append(String.format("%09dAB", l)).append("\t1STMG\tConf").append(1 + l % 19)
+                    .append("\tConf").append(1 + (l + 1) % 19).append("\tConf").append(1 + (l + 2) % 19)
+                    .append("\tTR").append(1 + l % 5).append("\tFM").append(1 + l % 6).append("\r\n");
+        }
+        tsv = sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NB_LIGNES)
+    public void classeurXlsx(Blackhole bh) throws Exception {
+        try (SheetRowReader rows = SheetRowReader.ouvrir(new ByteArrayInputStream(xlsx))) {
+            while (rows.hasNext()) {
+                String[] row = rows.next();
+                bh.consume(SheetRowReader.cellule(row, 3));
+                bh.consume(SheetRowReader.cellule(row, 1));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NB_LIGNES)
+    public void fichierVoeuxTsv(Blackhole bh) throws IOException {
+        TsvTokenizer tokenizer = new TsvTokenizer(new ByteArrayInputStream(tsv), StandardCharsets.ISO_8859_1);
+        int[] nombres = new int[3];
+        while (tokenizer.ligneSuivante()) {
+            bh.consume(tokenizer.texte(5));
+            for (int v = 7; v < 12; v++) {
+                bh.consume(tokenizer.commencePar(v, "Conf"));
+                bh.consume(tokenizer.nombres(v, nombres));
+            }
+        }
+    }
+}
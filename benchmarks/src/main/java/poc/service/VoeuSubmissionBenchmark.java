@@ -0,0 +1,121 @@
+package poc.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import poc.bench.BenchDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Saisie des voeux par VoeuService.enregistrerVoeux (lecture + MERGE par lot, compteurs des
+// statistiques apres validation) sur H2 memoire, plusieurs eleves en parallele (-t pour changer
+// le nombre de threads). Chaque thread soumet pour ses propres eleves, comme pendant la journee
+// d'inscription. Throughput : soumissions par ms ; SampleTime : p50, p90, p99, p99.9 par soumission.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class VoeuSubmissionBenchmark {
+
+    private static final int NB_ETUDIANTS = 4_000;
+
+    private BenchDatabase base;
+    private HikariDataSource pool;
+    private TransactionTemplate transaction;
+    private VoeuService voeuService;
+
+    // Une connexion par thread de mesure, comme le pool Hikari du backend sous charge
+    @Setup
+    public void preparer(BenchmarkParams params) {
+        base = new BenchDatabase(NB_ETUDIANTS);
+        pool = new HikariDataSource();
+        pool.setJdbcUrl(base.url());
+        pool.setUsername("sa");
+        pool.setMaximumPoolSize(params.getThreads());
+        JdbcTemplate jdbc = new JdbcTemplate(pool);
+        transaction = new TransactionTemplate(new DataSourceTransactionManager(pool));
+
+        PipelineMetrics pipelineMetrics = new PipelineMetrics();
+        BenchDatabase.injecter(pipelineMetrics, "registry", new SimpleMeterRegistry());
+        ReferenceDataCache referenceDataCache = new ReferenceDataCache();
+        BenchDatabase.injecter(referenceDataCache, "jdbc", jdbc);
+        BenchDatabase.injecter(referenceDataCache, "objectMapper", new ObjectMapper());
+        BenchDatabase.injecter(referenceDataCache, "pipelineMetrics", pipelineMetrics);
+        StatisticsService statisticsService = new StatisticsService();
+        BenchDatabase.injecter(statisticsService, "jdbc", jdbc);
+        BenchDatabase.injecter(statisticsService, "referenceDataCache", referenceDataCache);
+        BenchDatabase.injecter(statisticsService, "pipelineMetrics", pipelineMetrics);
+        // Compteurs charges : chaque soumission les met a jour, comme en production
+        statisticsService.getGlobalStatistics();
+
+        voeuService = new VoeuService();
+        BenchDatabase.injecter(voeuService, "jdbc", jdbc);
+        BenchDatabase.injecter(voeuService, "incrementalAssignmentService", new IncrementalAssignmentService());
+        BenchDatabase.injecter(voeuService, "referenceDataCache", referenceDataCache);
+        BenchDatabase.injecter(voeuService, "statisticsService", statisticsService);
+        BenchDatabase.injecter(voeuService, "pipelineMetrics", pipelineMetrics);
+        BenchDatabase.injecter(voeuService, "simulationService", new SimulationService());
+    }
+
+    @TearDown
+    public void fermer() {
+        pool.close();
+        base.close();
+    }
+
+    // Eleves du thread (ids congrus a son indice) et combinaisons de voeux valides
+    @State(Scope.Thread)
+    public static class Eleve {
+        private static final int NB_COMBINAISONS = 64;
+
+        private final List<List<Long>> combinaisons = new ArrayList<>();
+        private int premier;
+        private int pas;
+        private int rang;
+        private int i;
+
+        @Setup
+        public void preparer(ThreadParams params) {
+            premier = params.getThreadIndex();
+            pas = params.getThreadCount();
+            rang = premier;
+            Random random = new Random(params.getThreadIndex());
+            for (int c = 0; c < NB_COMBINAISONS; c++) {
+                List<Long> voeux = new ArrayList<>(5);
+                for (long id : BenchDatabase.voeux(random)) voeux.add(id);
+                combinaisons.add(voeux);
+            }
+        }
+
+        long etudiant() {
+            long id = 1 + rang;
+            rang += pas;
+            if (rang >= NB_ETUDIANTS) rang = premier;
+            return id;
+        }
+
+        List<Long> voeux() {
+            return combinaisons.get(i++ & (NB_COMBINAISONS - 1));
+        }
+    }
+
+    // @Transactional du service remplace par un TransactionTemplate (pas de proxy Spring ici)
+    @Benchmark
+    public void enregistrerVoeux(Eleve eleve) {
+        long etudiantId = eleve.etudiant();
+        List<Long> voeux = eleve.voeux();
+        transaction.executeWithoutResult(statut -> voeuService.enregistrerVoeux(etudiantId, voeux));
+    }
+}
@@ -0,0 +1,43 @@
+package poc.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import poc.bench.BenchDatabase;
+import poc.model.TypeActivite;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Regle 3-4-5 de VoeuService sur des combinaisons valides variees
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VoeuValidationBenchmark {
+
+    private static final int NB_COMBINAISONS = 1024;
+
+    private final List<List<TypeActivite>> combinaisons = new ArrayList<>();
+    private int i;
+
+    @Setup
+    public void preparer() {
+        Random random = new Random(42);
+        for (int c = 0; c < NB_COMBINAISONS; c++) {
+            List<TypeActivite> types = new ArrayList<>(5);
+            for (long id : BenchDatabase.voeux(random)) types.add(BenchDatabase.type(id));
+            combinaisons.add(types);
+        }
+    }
+
+    @Benchmark
+    public void verifierRegle345(Blackhole bh) {
+        List<TypeActivite> types = combinaisons.get(i++ & (NB_COMBINAISONS - 1));
+        VoeuService.verifierRegle345(types);
+        bh.consume(types);
+    }
+}
@@ -0,0 +1,46 @@
+package poc.service;
+
+import org.openjdk.jmh.annotations.*;
+import poc.bench.BenchDatabase;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+// Export des voeux par activite (ExcelService) : classeur SXSSF et variante ZIP de CSV
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WishesExportBenchmark {
+
+    @Param({"5000"})
+    public int nbEtudiants;
+
+    private BenchDatabase base;
+    private ExcelService excelService;
+
+    @Setup
+    public void preparer() {
+        base = new BenchDatabase(nbEtudiants);
+        excelService = new ExcelService();
+        BenchDatabase.injecter(excelService, "jdbc", base.jdbc());
+    }
+
+    @TearDown
+    public void fermer() {
+        base.close();
+    }
+
+    @Benchmark
+    public void classeurXlsx() throws IOException {
+        excelService.writeWishesExport(OutputStream.nullOutputStream(), base.activites());
+    }
+
+    @Benchmark
+    public void archiveCsvZip() throws IOException {
+        excelService.writeWishesCsvZip(OutputStream.nullOutputStream(), base.activites());
+    }
+}